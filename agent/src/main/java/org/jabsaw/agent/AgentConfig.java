@@ -0,0 +1,67 @@
+package org.jabsaw.agent;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Configuration of the agent, parsed from the agent arguments. The arguments
+ * are a comma separated list of key=value pairs:
+ *
+ * <pre>
+ * mode=log|halt   log violations asynchronously (default), or print the first
+ *                 violation and halt the JVM with exit code 1
+ * queueSize=n     capacity of the violation log queue (default: 1024)
+ * logFile=path    file to write the violations to (default: standard error)
+ * index=path[:path...]  module index files to load in addition to the
+ *                 META-INF/jabsaw/index.bin resources of the class path
+ * </pre>
+ */
+class AgentConfig {
+
+	enum Mode {
+		LOG, HALT
+	}
+
+	Mode mode = Mode.LOG;
+	int queueSize = 1024;
+	String logFile;
+	final List<String> indexFiles = new ArrayList<>();
+
+	public AgentConfig(String args) {
+		if (args == null || args.trim().isEmpty()) {
+			return;
+		}
+		for (String arg : args.split(",")) {
+			int idx = arg.indexOf('=');
+			if (idx < 0) {
+				throw new IllegalArgumentException("JabSaw agent: argument "
+						+ arg + " is not of the form key=value");
+			}
+			String key = arg.substring(0, idx).trim();
+			String value = arg.substring(idx + 1).trim();
+			switch (key) {
+			case "mode":
+				mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+				break;
+			case "queueSize":
+				queueSize = Integer.parseInt(value);
+				break;
+			case "logFile":
+				logFile = value;
+				break;
+			case "index":
+				for (String file : value.split(File.pathSeparator)) {
+					if (!file.isEmpty()) {
+						indexFiles.add(file);
+					}
+				}
+				break;
+			default:
+				throw new IllegalArgumentException(
+						"JabSaw agent: unknown argument " + key);
+			}
+		}
+	}
+}
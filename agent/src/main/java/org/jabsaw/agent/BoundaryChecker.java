@@ -0,0 +1,68 @@
+package org.jabsaw.agent;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.jabsaw.impl.model.DependencyGraph;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.PackageModuleTable;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Checks the classes referenced by a class file against the accessibility
+ * rules of the modules. The accessible modules of each module are held in a
+ * {@link BitSet}, indexed by the module ids of the {@link DependencyGraph}.
+ */
+class BoundaryChecker {
+
+	private final DependencyGraph graph;
+	private final PackageModuleTable moduleTable;
+
+	/**
+	 * Accessible modules by module id
+	 */
+	private final BitSet[] accessibleModules;
+
+	public BoundaryChecker(ProjectModel project) {
+		graph = project.getDependencyGraph();
+		moduleTable = project.getPackageModuleTable();
+		accessibleModules = new BitSet[graph.getModuleGraph().getNodeCount()];
+		for (int id = 0; id < accessibleModules.length; id++) {
+			BitSet accessible = new BitSet();
+			for (ModuleModel module : graph.getModule(id)
+					.getAllAccessibleModules()) {
+				accessible.set(graph.getId(module));
+			}
+			accessibleModules[id] = accessible;
+		}
+	}
+
+	/**
+	 * Check the given class file. Returns a description of each violation,
+	 * the empty list if the class respects the module boundaries.
+	 */
+	public List<String> check(byte[] classFile) {
+		List<String> classNames = ConstantPool.getClassNames(classFile);
+		String className = classNames.get(0).replace('/', '.');
+		ModuleModel module = moduleTable.getModule(className);
+		if (module == null) {
+			// classes in no module may access everything
+			return new ArrayList<>(0);
+		}
+		BitSet accessible = accessibleModules[graph.getId(module)];
+
+		List<String> violations = new ArrayList<>(0);
+		for (int i = 1; i < classNames.size(); i++) {
+			String usedName = classNames.get(i).replace('/', '.');
+			ModuleModel usedModule = moduleTable.getModule(usedName);
+			if (usedModule != null
+					&& !accessible.get(graph.getId(usedModule))) {
+				violations.add("Class " + className + " in module " + module
+						+ " uses " + usedName + " in inaccessible module "
+						+ usedModule);
+			}
+		}
+		return violations;
+	}
+}
@@ -0,0 +1,227 @@
+package org.jabsaw.agent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+/**
+ * Minimal class file reader, extracting the classes referenced by a class
+ * file. Independent of the class file version, since only the constant pool,
+ * the member descriptors and the Signature attributes are read. Annotations
+ * are not read, they are only resolved when accessed reflectively.
+ */
+class ConstantPool {
+
+	private ConstantPool() {
+	}
+
+	/**
+	 * Return the internal name of the class defined by the class file,
+	 * followed by the internal names of all other classes it references:
+	 * class constants, the descriptors of referenced and declared fields and
+	 * methods, method types and generic signatures. Array types are mapped to
+	 * their element type, arrays of primitives are skipped. Each name is
+	 * returned once.
+	 */
+	static List<String> getClassNames(byte[] b) {
+		int count = readUnsignedShort(b, 8);
+		int[] offsets = new int[count];
+		int[] classNameIndexes = new int[count];
+		int classCount = 0;
+		int[] descriptorIndexes = new int[count];
+		int descriptorCount = 0;
+
+		// find the items
+		int offset = 10;
+		for (int i = 1; i < count; i++) {
+			offsets[i] = offset + 1;
+			int tag = b[offset];
+			switch (tag) {
+			case 1: // utf8
+				offset += 3 + readUnsignedShort(b, offset + 1);
+				break;
+			case 7: // class
+				classNameIndexes[classCount++] = readUnsignedShort(b,
+						offset + 1);
+				offset += 3;
+				break;
+			case 16: // method type
+				descriptorIndexes[descriptorCount++] = readUnsignedShort(b,
+						offset + 1);
+				offset += 3;
+				break;
+			case 8: // string
+			case 19: // module
+			case 20: // package
+				offset += 3;
+				break;
+			case 15: // method handle
+				offset += 4;
+				break;
+			case 12: // name and type
+				descriptorIndexes[descriptorCount++] = readUnsignedShort(b,
+						offset + 3);
+				offset += 5;
+				break;
+			case 3: // int
+			case 4: // float
+			case 9: // field ref
+			case 10: // method ref
+			case 11: // interface method ref
+			case 17: // dynamic
+			case 18: // invoke dynamic
+				offset += 5;
+				break;
+			case 5: // long
+			case 6: // double
+				offset += 9;
+				i++;
+				break;
+			default:
+				throw new IllegalArgumentException(
+						"Unknown constant pool tag " + tag);
+			}
+		}
+
+		// the this_class item follows the constant pool, after the access flags
+		int thisClass = readUnsignedShort(b, offset + 2);
+
+		Set<String> result = new LinkedHashSet<>();
+		result.add(readUtf8(b, offsets[readUnsignedShort(b,
+				offsets[thisClass])]));
+		for (int i = 0; i < classCount; i++) {
+			if (classNameIndexes[i] == 0) {
+				continue;
+			}
+			String name = readUtf8(b, offsets[classNameIndexes[i]]);
+			if (name.startsWith("[")) {
+				addDescriptorTypes(name, result);
+			} else {
+				result.add(name);
+			}
+		}
+		for (int i = 0; i < descriptorCount; i++) {
+			addDescriptorTypes(readUtf8(b, offsets[descriptorIndexes[i]]),
+					result);
+		}
+
+		// skip access flags, this_class, super_class and the interfaces,
+		// which are class constants
+		offset += 6;
+		offset += 2 + 2 * readUnsignedShort(b, offset);
+
+		// fields and methods
+		for (int kind = 0; kind < 2; kind++) {
+			int memberCount = readUnsignedShort(b, offset);
+			offset += 2;
+			for (int i = 0; i < memberCount; i++) {
+				addDescriptorTypes(
+						readUtf8(b, offsets[readUnsignedShort(b, offset + 4)]),
+						result);
+				offset = readAttributes(b, offsets, offset + 6, kind == 0,
+						result);
+			}
+		}
+
+		// class attributes
+		readAttributes(b, offsets, offset, false, result);
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * Read the attributes starting at the given offset and add the classes
+	 * of the Signature attribute. Returns the offset following the
+	 * attributes.
+	 */
+	private static int readAttributes(byte[] b, int[] offsets, int offset,
+			boolean typeSignature, Set<String> result) {
+		int attributeCount = readUnsignedShort(b, offset);
+		offset += 2;
+		for (int i = 0; i < attributeCount; i++) {
+			int nameOffset = offsets[readUnsignedShort(b, offset)];
+			int length = readInt(b, offset + 2);
+			if (isUtf8(b, nameOffset, "Signature")) {
+				addSignatureTypes(
+						readUtf8(b, offsets[readUnsignedShort(b, offset + 6)]),
+						typeSignature, result);
+			}
+			offset += 6 + length;
+		}
+		return offset;
+	}
+
+	/**
+	 * Add the classes of a field or method descriptor. Outside of class names,
+	 * descriptors only contain single character codes, thus each L starts a
+	 * class name.
+	 */
+	private static void addDescriptorTypes(String descriptor,
+			Set<String> result) {
+		int start = descriptor.indexOf('L');
+		while (start >= 0) {
+			int end = descriptor.indexOf(';', start);
+			result.add(descriptor.substring(start + 1, end));
+			start = descriptor.indexOf('L', end);
+		}
+	}
+
+	/**
+	 * Add the classes of a generic signature. Field signatures are type
+	 * signatures, class and method signatures are not.
+	 */
+	private static void addSignatureTypes(String signature,
+			boolean typeSignature, final Set<String> result) {
+		SignatureVisitor visitor = new SignatureVisitor(Opcodes.ASM5) {
+			@Override
+			public void visitClassType(String name) {
+				result.add(name);
+			}
+		};
+		if (typeSignature) {
+			new SignatureReader(signature).acceptType(visitor);
+		} else {
+			new SignatureReader(signature).accept(visitor);
+		}
+	}
+
+	private static int readUnsignedShort(byte[] b, int offset) {
+		return ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+	}
+
+	private static int readInt(byte[] b, int offset) {
+		return (readUnsignedShort(b, offset) << 16)
+				| readUnsignedShort(b, offset + 2);
+	}
+
+	/**
+	 * Check if the utf8 item whose length is stored at the given offset
+	 * equals the given ASCII string, without decoding the item.
+	 */
+	private static boolean isUtf8(byte[] b, int offset, String s) {
+		if (readUnsignedShort(b, offset) != s.length()) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (b[offset + 2 + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the utf8 item whose length is stored at the given offset. Class
+	 * names are decoded as UTF-8, which matches the modified UTF-8 of class
+	 * files for all characters except NUL and supplementary characters.
+	 */
+	private static String readUtf8(byte[] b, int offset) {
+		int length = readUnsignedShort(b, offset);
+		return new String(b, offset + 2, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,116 @@
+package org.jabsaw.agent;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.security.ProtectionDomain;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Java agent checking module boundaries at runtime. Every class defined by a
+ * class loader other than the bootstrap loader is checked as it is defined,
+ * including classes generated at runtime. The modules are read from the
+ * module indexes (see {@link ModelIndex}) found on the class path. See
+ * {@link AgentConfig} for the arguments.
+ *
+ * <p>
+ * Reflective access (Class.forName(), Method.invoke() and the like) is not
+ * checked. Intercepting it would require rewriting JDK classes, which are
+ * caller sensitive and loaded before the agent starts.
+ */
+public class JabsawAgent {
+
+	public static void premain(String args, Instrumentation instrumentation) {
+		start(args, instrumentation);
+	}
+
+	public static void agentmain(String args, Instrumentation instrumentation) {
+		start(args, instrumentation);
+	}
+
+	private static void start(String args, Instrumentation instrumentation) {
+		AgentConfig config = new AgentConfig(args);
+		ProjectModel project;
+		try {
+			project = loadProject(config);
+		} catch (Exception e) {
+			System.err.println("JabSaw agent: error while loading module index, agent disabled");
+			e.printStackTrace();
+			return;
+		}
+		if (project.getModules().isEmpty()) {
+			System.err.println("JabSaw agent: no modules found, agent disabled");
+			return;
+		}
+
+		PrintStream out = System.err;
+		if (config.logFile != null) {
+			try {
+				out = new PrintStream(new FileOutputStream(config.logFile),
+						false, "UTF-8");
+			} catch (IOException e) {
+				System.err.println("JabSaw agent: cannot open log file "
+						+ config.logFile + ", using standard error");
+			}
+		}
+
+		final BoundaryChecker checker = new BoundaryChecker(project);
+		final ViolationLog log = new ViolationLog(config.queueSize, out);
+		final boolean halt = config.mode == AgentConfig.Mode.HALT;
+		final PrintStream haltOut = out;
+		log.start();
+
+		instrumentation.addTransformer(new ClassFileTransformer() {
+			@Override
+			public byte[] transform(ClassLoader loader, String className,
+					Class<?> classBeingRedefined,
+					ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+				if (loader == null || classBeingRedefined != null) {
+					return null;
+				}
+				try {
+					List<String> violations = checker.check(classfileBuffer);
+					if (!violations.isEmpty()) {
+						if (halt) {
+							haltOut.println("JabSaw: " + violations.get(0));
+							haltOut.flush();
+							Runtime.getRuntime().halt(1);
+						}
+						for (String violation : violations) {
+							log.add(violation);
+						}
+					}
+				} catch (RuntimeException e) {
+					log.add("error while checking " + className + ": " + e);
+				}
+				return null;
+			}
+		});
+	}
+
+	private static ProjectModel loadProject(AgentConfig config)
+			throws IOException {
+		ProjectModel project = new ProjectModel();
+		for (String file : config.indexFiles) {
+			ModelIndex.read(Paths.get(file), project);
+		}
+		Enumeration<URL> indexes = ClassLoader.getSystemClassLoader()
+				.getResources(ModelIndex.RESOURCE_NAME);
+		while (indexes.hasMoreElements()) {
+			try (InputStream in = indexes.nextElement().openStream()) {
+				ModelIndex.read(in, project);
+			}
+		}
+		project.resolveDependencies();
+		return project;
+	}
+}
@@ -0,0 +1,84 @@
+package org.jabsaw.agent;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, asynchronous log of boundary violations. Violations are written by
+ * a daemon thread. If the queue is full, violations are dropped and counted,
+ * so class loading is never blocked.
+ */
+class ViolationLog {
+
+	private final BlockingQueue<String> queue;
+	private final PrintStream out;
+	private final AtomicLong dropped = new AtomicLong();
+
+	public ViolationLog(int capacity, PrintStream out) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.out = out;
+	}
+
+	/**
+	 * Start the writer thread and register a shutdown hook writing the
+	 * remaining violations.
+	 */
+	public void start() {
+		Thread writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						write(queue.take());
+					}
+				} catch (InterruptedException e) {
+					// terminate
+				}
+			}
+		}, "jabsaw-violation-log");
+		writer.setDaemon(true);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, "jabsaw-violation-log-flush"));
+	}
+
+	/**
+	 * Add a violation to the log, without blocking
+	 */
+	public void add(String violation) {
+		if (!queue.offer(violation)) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	private void write(String violation) {
+		out.println("JabSaw: " + violation);
+	}
+
+	/**
+	 * Write all queued violations and the number of dropped violations
+	 */
+	public synchronized void flush() {
+		String violation;
+		while ((violation = queue.poll()) != null) {
+			write(violation);
+		}
+		long count = dropped.getAndSet(0);
+		if (count > 0) {
+			out.println("JabSaw: " + count
+					+ " violations dropped, the log queue was full");
+		}
+		out.flush();
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+}
@@ -0,0 +1,72 @@
+package org.jabsaw.agent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.impl.pattern.ClassPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class BoundaryCheckerTest {
+
+	private ProjectModel createProject(boolean importUsed) {
+		ProjectModel project = new ProjectModel();
+		ModuleModel user = new ModuleModel(project, "org.jabsaw.agent.UserModule");
+		user.addInclusionPattern(new ClassPattern("org.jabsaw.agent",
+				TestUser.class.getName()));
+		ModuleModel used = new ModuleModel(project, "org.jabsaw.agent.UsedModule");
+		used.addInclusionPattern(new ClassPattern("org.jabsaw.agent",
+				TestUsed.class.getName()));
+		if (importUsed) {
+			user.addImportedModuleName(used.getQualifiedNameOfRepresentingClass());
+		}
+		project.resolveDependencies();
+		return project;
+	}
+
+	private byte[] getClassFile(Class<?> clazz) throws IOException {
+		try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName()
+				+ ".class")) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+
+	@Test
+	public void violation() throws IOException {
+		List<String> violations = new BoundaryChecker(createProject(false))
+				.check(getClassFile(TestUser.class));
+		Assert.assertEquals(1, violations.size());
+		Assert.assertTrue(violations.get(0).contains(TestUsed.class.getName()));
+	}
+
+	@Test
+	public void accessible() throws IOException {
+		Assert.assertTrue(new BoundaryChecker(createProject(true)).check(
+				getClassFile(TestUser.class)).isEmpty());
+	}
+
+	@Test
+	public void classNames() throws IOException {
+		List<String> names = ConstantPool
+				.getClassNames(getClassFile(TestUser.class));
+		Assert.assertEquals("org/jabsaw/agent/TestUser", names.get(0));
+		Assert.assertTrue(names.contains("org/jabsaw/agent/TestUsed"));
+		Assert.assertTrue(names.contains("java/lang/Object"));
+	}
+
+	@Test
+	public void descriptorsAndSignatures() throws IOException {
+		Assert.assertTrue(ConstantPool.getClassNames(
+				getClassFile(TestDescriptorUser.class)).contains(
+				"org/jabsaw/agent/TestUsed"));
+		List<String> names = ConstantPool
+				.getClassNames(getClassFile(TestSignatureUser.class));
+		Assert.assertTrue(names.contains("java/util/List"));
+		Assert.assertTrue(names.contains("org/jabsaw/agent/TestUsed"));
+	}
+}
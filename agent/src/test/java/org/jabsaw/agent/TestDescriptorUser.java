@@ -0,0 +1,6 @@
+package org.jabsaw.agent;
+
+class TestDescriptorUser {
+	void use(TestUsed used) {
+	}
+}
@@ -0,0 +1,7 @@
+package org.jabsaw.agent;
+
+import java.util.List;
+
+class TestSignatureUser {
+	List<TestUsed> used;
+}
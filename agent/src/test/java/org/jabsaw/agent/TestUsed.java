@@ -0,0 +1,5 @@
+package org.jabsaw.agent;
+
+class TestUsed {
+
+}
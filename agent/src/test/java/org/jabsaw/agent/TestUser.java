@@ -0,0 +1,5 @@
+package org.jabsaw.agent;
+
+class TestUser {
+	TestUsed[] used = new TestUsed[] { new TestUsed() };
+}
@@ -1,15 +1,33 @@
 package org.jabsaw;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.jabsaw.impl.ClassParser;
 import org.jabsaw.impl.ClassParser.DirectoryParsingCallback;
+import org.jabsaw.impl.CdsClassListWriter;
 import org.jabsaw.impl.GraphizPrinter;
+import org.jabsaw.impl.ImpactAnalysis;
+import org.jabsaw.impl.ModuleJarWriter;
+import org.jabsaw.impl.ReachabilityAnalysis;
+import org.jabsaw.impl.SummaryLinker;
+import org.jabsaw.impl.model.ClassEdge;
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyKind;
+import org.jabsaw.impl.model.MemberReference;
+import org.jabsaw.impl.model.ModelDiff;
+import org.jabsaw.impl.model.ModelSnapshot;
+import org.jabsaw.impl.model.ModuleEdge;
+import org.jabsaw.impl.model.ModuleModel;
 import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.impl.model.RecompileReport;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -26,6 +44,9 @@ public class Main {
 	@Option(name = "-cb", handler = ArgumentBooleanHandler.class, usage = "check that all classes respect the module boundaries. default: true")
 	private boolean checkClassAccessibility = true;
 
+	@Option(name = "-cbKinds", metaVar = "KINDS", usage = "comma separated dependency kinds checked against the module boundaries: inheritance, fieldType, signature, methodBody, annotation, or api for all but methodBody. default: all")
+	private String checkedDependencyKinds = "all";
+
 	@Option(name = "-graphiz", handler = ArgumentBooleanHandler.class, usage = "If true, generate a module graph Graphviz file. Default: false")
 	private boolean createModuleGraphvizFile = false;
 
@@ -41,6 +62,39 @@ public class Main {
 	@Option(name = "-graphvizFormat", usage = "Set the output format of the module graph. If set, the dot command will be executed. Implies -graphviz. Examples: ps, png, gif, svg. Default: empty")
 	private String moduleGraphFormat = "";
 
+	@Option(name = "-usedBy", usage = "Print the classes directly using the given class or the modules depending on the given module. Can be repeated")
+	private List<String> usedBy = new ArrayList<>();
+
+	@Option(name = "-why", metaVar = "FROM:TO", usage = "Explain why a module or class depends on another module or class by printing a shortest dependency path. Can be repeated")
+	private List<String> why = new ArrayList<>();
+
+	@Option(name = "-usedMembers", metaVar = "MODULE", usage = "Print the fields and methods of the given module used by classes outside of the module. Enables recording member references while parsing. Can be repeated")
+	private List<String> usedMembers = new ArrayList<>();
+
+	@Option(name = "-changed", metaVar = "FILE", usage = "Print the modules and classes affected by the changed classes listed in the given file, one per line. Use - to read from standard input. Entries are class files, relative to an input directory or absolute, or qualified class names")
+	private String changedClassesFile;
+
+	@Option(name = "-saveBaseline", metaVar = "FILE", usage = "Save a snapshot of the model to the given file, to be used with -diffBaseline later on")
+	private File saveBaselineFile;
+
+	@Option(name = "-diffBaseline", metaVar = "FILE", usage = "Print the differences between the model snapshot saved in the given file and the current model")
+	private File diffBaselineFile;
+
+	@Option(name = "-recompileBaseline", metaVar = "FILE", usage = "Print the modules which need to be recompiled, since their ABI or the ABI of a module they depend on changed compared to the model snapshot saved in the given file")
+	private File recompileBaselineFile;
+
+	@Option(name = "-entryPoint", metaVar = "PATTERN", usage = "Report all classes which are not reachable from the entry points. An entry point is a module, whose classes are all used as entry classes, or a class pattern. Can be repeated")
+	private List<String> entryPoints = new ArrayList<>();
+
+	@Option(name = "-moduleJars", metaVar = "DIR", usage = "Write a jar per module to the given directory, containing only the classes required by the module and the resources in their packages")
+	private File moduleJarDirectory;
+
+	@Option(name = "-cdsClassLists", metaVar = "DIR", usage = "Write a Class Data Sharing class list (-XX:SharedClassListFile) per module to the given directory, containing the classes required by the module in dependency order")
+	private File cdsClassListDirectory;
+
+	@Option(name = "-summary", metaVar = "FILE", usage = "Link the summary of another artifact into the model instead of parsing it. The file is a jar or class directory containing a module index, or a module index itself. Linked classes are not checked. Can be repeated")
+	private List<File> summaries = new ArrayList<>();
+
 	@Option(name = "-v", handler = ArgumentBooleanHandler.class, usage = "verbose output. default: false")
 	private boolean verbose = false;
 
@@ -58,6 +112,7 @@ public class Main {
 		System.out.println("Checking Modules ...");
 
 		final ClassParser parser = new ClassParser();
+		parser.setRecordMemberReferences(!usedMembers.isEmpty());
 		ProjectModel project = parser.getProject();
 		project.setUseModuleNames(useModuleNames);
 
@@ -76,6 +131,13 @@ public class Main {
 			}
 		};
 
+		SummaryLinker linker = new SummaryLinker(project);
+		for (File f : summaries) {
+			if (!linker.link(f.toPath())) {
+				System.out.println("No summary found in " + f);
+			}
+		}
+
 		for (File f : inputDirectories) {
 			parser.parseDirectory(errors, f.toPath(), callback);
 		}
@@ -86,6 +148,64 @@ public class Main {
 			System.out.println("Project Details:\n" + project.details());
 		}
 
+		for (String name : usedBy) {
+			printUsedBy(project, name);
+		}
+
+		for (String pair : why) {
+			printWhy(project, pair);
+		}
+
+		for (String name : usedMembers) {
+			printUsedMembers(project, name);
+		}
+
+		if (changedClassesFile != null) {
+			printImpact(project);
+		}
+
+		if (!entryPoints.isEmpty()) {
+			System.out.println("Classes unreachable from " + entryPoints + ":");
+			new ReachabilityAnalysis(project).analyze(entryPoints).print(
+					new PrintWriter(System.out));
+		}
+
+		if (moduleJarDirectory != null) {
+			System.out.println("Writing module jars to " + moduleJarDirectory
+					+ " ...");
+			new ModuleJarWriter(getInputPaths()).writeAll(project,
+					moduleJarDirectory.toPath());
+		}
+
+		if (cdsClassListDirectory != null) {
+			System.out.println("Writing CDS class lists to "
+					+ cdsClassListDirectory + " ...");
+			new CdsClassListWriter().writeAll(project,
+					cdsClassListDirectory.toPath());
+		}
+
+		if (saveBaselineFile != null || diffBaselineFile != null
+				|| recompileBaselineFile != null) {
+			ModelSnapshot snapshot = ModelSnapshot.of(project);
+			if (diffBaselineFile != null) {
+				System.out.println("Differences to baseline "
+						+ diffBaselineFile + ":");
+				ModelDiff.compare(
+						ModelSnapshot.read(diffBaselineFile.toPath()),
+						snapshot).print(new PrintWriter(System.out));
+			}
+			if (recompileBaselineFile != null) {
+				System.out.println("Recompilation compared to baseline "
+						+ recompileBaselineFile + ":");
+				RecompileReport.compare(
+						ModelSnapshot.read(recompileBaselineFile.toPath()),
+						snapshot).print(new PrintWriter(System.out));
+			}
+			if (saveBaselineFile != null) {
+				snapshot.write(saveBaselineFile.toPath());
+			}
+		}
+
 		if (checkDepedencyCycles) {
 			System.out.println("Checking module dependencies for cycles ...");
 			project.checkDependencyCycles(errors);
@@ -98,7 +218,8 @@ public class Main {
 
 		if (checkClassAccessibility) {
 			System.out.println("Checking class dependencies ...");
-			project.checkClassAccessibility(errors);
+			project.checkClassAccessibility(errors,
+					DependencyKind.parse(checkedDependencyKinds));
 		}
 
 		if (!errors.isEmpty()) {
@@ -141,6 +262,140 @@ public class Main {
 
 	}
 
+	private void printUsedBy(ProjectModel project, String name) {
+		ModuleModel module = project.findModule(name);
+		if (module != null) {
+			System.out.println("Modules depending on module " + module + ":");
+			for (ModuleModel dependent : module.getAllDependentModules()) {
+				if (dependent != module) {
+					System.out.println("  " + dependent);
+				}
+			}
+			return;
+		}
+
+		ClassModel clazz = project.getClassModel(name);
+		if (clazz == null) {
+			System.out.println("No class or module found for " + name);
+			return;
+		}
+		System.out.println("Classes using class " + clazz + ":");
+		for (ClassModel user : clazz.getUsedByClasses()) {
+			if (user != clazz) {
+				System.out.println("  " + user);
+			}
+		}
+	}
+
+	private void printUsedMembers(ProjectModel project, String name) {
+		ModuleModel module = project.findModule(name);
+		if (module == null) {
+			System.out.println("No module found for " + name);
+			return;
+		}
+		System.out.println("Members of module " + module
+				+ " used outside of the module:");
+		for (MemberReference member : project.getUsedMembers(module)) {
+			System.out.println("  " + member);
+		}
+	}
+
+	private void printWhy(ProjectModel project, String pair) {
+		String[] parts = pair.split(":");
+		if (parts.length != 2) {
+			System.out.println("Expected FROM:TO, got " + pair);
+			return;
+		}
+
+		ModuleModel fromModule = project.findModule(parts[0]);
+		ModuleModel toModule = project.findModule(parts[1]);
+		if (fromModule != null && toModule != null) {
+			List<ModuleEdge> path = project.explainModuleDependency(
+					fromModule, toModule);
+			if (path.isEmpty()) {
+				System.out.println("Module " + fromModule
+						+ " does not depend on module " + toModule);
+				return;
+			}
+			System.out.println("Module " + fromModule
+					+ " depends on module " + toModule + ":");
+			for (ModuleEdge edge : path) {
+				System.out.println("  " + edge);
+				for (ClassEdge classEdge : edge.getClassEdges()) {
+					System.out.println("    " + classEdge);
+				}
+			}
+			return;
+		}
+
+		ClassModel fromClass = project.getClassModel(parts[0]);
+		ClassModel toClass = project.getClassModel(parts[1]);
+		if (fromClass == null || toClass == null) {
+			System.out.println("No modules or classes found for " + pair);
+			return;
+		}
+		List<ClassModel> path = project.explainClassDependency(fromClass,
+				toClass);
+		if (path.isEmpty()) {
+			System.out.println("Class " + fromClass
+					+ " does not depend on class " + toClass);
+			return;
+		}
+		System.out.println("Class " + fromClass + " depends on class "
+				+ toClass + ":");
+		for (ClassModel clazz : path) {
+			System.out.println("  " + clazz);
+		}
+	}
+
+	private List<Path> getInputPaths() {
+		List<Path> dirs = new ArrayList<>();
+		for (File f : inputDirectories) {
+			dirs.add(f.toPath());
+		}
+		return dirs;
+	}
+
+	private void printImpact(ProjectModel project) throws IOException {
+		List<Path> dirs = getInputPaths();
+
+		List<String> changed = new ArrayList<>();
+		BufferedReader reader = new BufferedReader("-"
+				.equals(changedClassesFile) ? new InputStreamReader(System.in)
+				: new FileReader(changedClassesFile));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty()) {
+					continue;
+				}
+				String className = ImpactAnalysis.toClassName(line, dirs);
+				if (className == null) {
+					System.err.println("Ignoring changed file " + line);
+				} else {
+					changed.add(className);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+
+		ImpactAnalysis.Result result = new ImpactAnalysis(project)
+				.analyze(changed);
+		for (String name : result.getUnknownClassNames()) {
+			System.err.println("Changed class not found: " + name);
+		}
+		System.out.println("Affected modules:");
+		for (ModuleModel module : result.getAffectedModules()) {
+			System.out.println("  " + module);
+		}
+		System.out.println("Affected classes:");
+		for (ClassModel clazz : result.getAffectedClasses()) {
+			System.out.println("  " + clazz);
+		}
+	}
+
 	private void parseCmdLine(String[] args) {
 		CmdLineParser parser = new CmdLineParser(this);
 
@@ -0,0 +1,92 @@
+package org.jabsaw.impl;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyGraph;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Writes class lists for the Class Data Sharing feature of the JVM (see the
+ * -XX:SharedClassListFile option). The list of a module contains all classes
+ * the module requires (see {@link ModuleModel#getAllClassDependencies()}),
+ * including nested classes. Used classes are listed before the classes using
+ * them, unless they depend on each other cyclically.
+ */
+public class CdsClassListWriter {
+
+	/**
+	 * Write a class list for each module of the project to the given
+	 * directory. The files are named after the identification of the modules.
+	 * Modules linked from the summaries of other artifacts are skipped.
+	 */
+	public void writeAll(ProjectModel project, Path outputDirectory)
+			throws IOException {
+		Files.createDirectories(outputDirectory);
+		for (ModuleModel module : project.getModules().values()) {
+			if (module.isLinked()) {
+				continue;
+			}
+			try (Writer writer = Files.newBufferedWriter(
+					outputDirectory.resolve(module.getIdentification()
+							+ ".classlist"), StandardCharsets.UTF_8)) {
+				write(module, writer);
+			}
+		}
+	}
+
+	/**
+	 * Write the class list of a single module
+	 */
+	public void write(ModuleModel module, Writer w) {
+		PrintWriter out = new PrintWriter(w);
+		for (ClassModel clazz : getOrderedClasses(module)) {
+			out.println(toInternalName(clazz));
+			List<ClassModel> nestedClasses = new ArrayList<>(
+					clazz.getNestedClasses());
+			Collections.sort(nestedClasses, new Comparator<ClassModel>() {
+				@Override
+				public int compare(ClassModel o1, ClassModel o2) {
+					return o1.getQualifiedName().compareTo(
+							o2.getQualifiedName());
+				}
+			});
+			for (ClassModel nested : nestedClasses) {
+				out.println(toInternalName(nested));
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Return the toplevel classes required by the module, ordered by their
+	 * dependencies.
+	 */
+	public List<ClassModel> getOrderedClasses(ModuleModel module) {
+		DependencyGraph graph = module.getProjectModel().getDependencyGraph();
+		Set<ClassModel> required = module.getAllClassDependencies();
+		List<ClassModel> result = new ArrayList<>();
+		for (int id : graph.getClassOrder()) {
+			ClassModel clazz = graph.getClass(id);
+			if (required.contains(clazz)) {
+				result.add(clazz);
+			}
+		}
+		return result;
+	}
+
+	private String toInternalName(ClassModel clazz) {
+		return clazz.getQualifiedName().replace('.', '/');
+	}
+}
@@ -5,14 +5,21 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Array;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.jabsaw.impl.model.AbiFingerprint;
+import org.jabsaw.impl.model.AnnotatedElement;
+import org.jabsaw.impl.model.AnnotatedElement.Kind;
 import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyKind;
 import org.jabsaw.impl.model.ModuleModel;
 import org.jabsaw.impl.model.ProjectModel;
 import org.jabsaw.impl.pattern.ClassPattern;
@@ -33,10 +40,25 @@ public class ClassParser {
 
 	private final ProjectModel project = new ProjectModel();
 
+	private boolean recordMemberReferences;
+
 	public ProjectModel getProject() {
 		return project;
 	}
 
+	/**
+	 * If true, the fields and methods referenced by the bytecode of the
+	 * parsed classes are recorded (see {@link ClassModel#getMemberReferences()}
+	 * ). Disabled by default.
+	 */
+	public boolean isRecordMemberReferences() {
+		return recordMemberReferences;
+	}
+
+	public void setRecordMemberReferences(boolean recordMemberReferences) {
+		this.recordMemberReferences = recordMemberReferences;
+	}
+
 	public interface DirectoryParsingCallback {
 		void parsingFile(Path file);
 
@@ -98,15 +120,36 @@ public class ClassParser {
 	}
 
 	public void parse(ClassReader reader) {
-		reader.accept(new ParsingClassVisitor(), ClassReader.SKIP_FRAMES);
+		reader.accept(new ParsingClassVisitor(reader.b.length),
+				ClassReader.SKIP_FRAMES);
 	}
 
 	class ParsingClassVisitor extends ClassVisitor {
 
 		ClassModel classModel;
-
-		public ParsingClassVisitor() {
+		private final int classFileSize;
+
+		/**
+		 * Ids of the referenced members, only allocated in member-level mode
+		 */
+		private int[] memberReferenceIds;
+		private int memberReferenceCount;
+
+		/**
+		 * Entries describing the non-private API of the class, hashed into
+		 * the ABI fingerprint when the class has been visited
+		 */
+		private final List<String> abiEntries = new ArrayList<>();
+
+		/**
+		 * False for anonymous, local and private member classes, which can
+		 * not be referenced from other compilation units
+		 */
+		private boolean partOfAbi = true;
+
+		public ParsingClassVisitor(int classFileSize) {
 			super(Opcodes.ASM5);
+			this.classFileSize = classFileSize;
 		}
 
 		@Override
@@ -114,11 +157,25 @@ public class ClassParser {
 				String signature, String superName, String[] interfaces) {
 			classModel = new ClassModel(project, Type.getObjectType(name)
 					.getClassName());
-			handleClassOrMethodSignature(classModel, signature);
-			handleType(classModel, superName);
+			classModel.setClassFileSize(classFileSize);
+			classModel.setAccess(access);
+			handleClassOrMethodSignature(classModel, signature,
+					DependencyKind.SIGNATURE);
+			handleType(classModel, superName, DependencyKind.INHERITANCE);
+			if (superName != null) {
+				classModel.superClassName = Type.getObjectType(superName)
+						.getClassName();
+			}
 			for (String s : interfaces) {
-				handleType(classModel, s);
+				handleType(classModel, s, DependencyKind.INHERITANCE);
+				classModel.interfaceNames.add(Type.getObjectType(s)
+						.getClassName());
 			}
+			String[] sortedInterfaces = interfaces.clone();
+			Arrays.sort(sortedInterfaces);
+			abiEntries.add("class " + (access & ~Opcodes.ACC_SUPER) + " "
+					+ name + " " + signature + " " + superName + " "
+					+ Arrays.toString(sortedInterfaces));
 		}
 
 		@Override
@@ -130,18 +187,28 @@ public class ClassParser {
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			classModel.addAnnotation(new AnnotatedElement(classModel, Type
+					.getType(desc).getClassName(), Kind.CLASS, null, null, -1));
 			if ("org.jabsaw.Module".equals(Type.getType(desc).getClassName())) {
+				abiEntries.add("annotation " + desc);
 				return new ModuleAnnotationVisitor(
 						classModel.getQualifiedName());
 			} else {
-				handleTypeDescriptor(classModel, desc);
-				return new ParsingAnnotationVisitor(classModel);
+				handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
+				return new ParsingAnnotationVisitor(classModel, abiEntries,
+						"annotation " + desc);
 			}
 		}
 
 		@Override
 		public void visitInnerClass(String name, String outerName,
 				String innerName, int access) {
+			if (name != null
+					&& Type.getObjectType(name).getClassName()
+							.equals(classModel.getQualifiedName())) {
+				partOfAbi = outerName != null && innerName != null
+						&& (access & Opcodes.ACC_PRIVATE) == 0;
+			}
 			if (name != null && outerName != null) {
 				if (Type.getObjectType(name).getClassName()
 						.equals(classModel.getQualifiedName())) {
@@ -161,45 +228,110 @@ public class ClassParser {
 		@Override
 		public MethodVisitor visitMethod(int access, String name, String desc,
 				String signature, String[] exceptions) {
-			handleClassOrMethodSignature(classModel, signature);
-			handleMethodDescriptor(classModel, desc);
+			handleClassOrMethodSignature(classModel, signature,
+					DependencyKind.SIGNATURE);
+			handleMethodDescriptor(classModel, desc, DependencyKind.SIGNATURE);
 			if (exceptions != null) {
 				for (String s : exceptions) {
-					handleType(classModel, s);
+					handleType(classModel, s, DependencyKind.SIGNATURE);
 				}
 			}
-			return new ParsingMethodVisitor(classModel);
+			if (isApi(access)) {
+				String[] sortedExceptions = exceptions == null ? new String[0]
+						: exceptions.clone();
+				Arrays.sort(sortedExceptions);
+				abiEntries.add("method " + access + " " + name + desc + " "
+						+ signature + " " + Arrays.toString(sortedExceptions));
+			}
+			return new ParsingMethodVisitor(this, access, name, desc);
 		}
 
 		@Override
 		public FieldVisitor visitField(int access, String name, String desc,
 				String signature, Object value) {
-			handleFieldSignature(classModel, signature);
-			handleTypeDescriptor(classModel, desc);
-			return new ParsingFieldVisitor(classModel);
+			handleFieldSignature(classModel, signature,
+					DependencyKind.FIELD_TYPE);
+			handleTypeDescriptor(classModel, desc, DependencyKind.FIELD_TYPE);
+			if (isApi(access)) {
+				// constant values are inlined by the compiler
+				abiEntries.add("field " + access + " " + name + " " + desc
+						+ " " + signature + " " + value);
+			}
+			return new ParsingFieldVisitor(this, access, name, desc);
+		}
+
+		void addMemberReference(String owner, String name, String desc) {
+			if (memberReferenceIds == null) {
+				memberReferenceIds = new int[16];
+			} else if (memberReferenceCount == memberReferenceIds.length) {
+				memberReferenceIds = Arrays.copyOf(memberReferenceIds,
+						memberReferenceCount * 2);
+			}
+			memberReferenceIds[memberReferenceCount++] = project
+					.getMemberTable().intern(
+							Type.getObjectType(owner).getClassName(), name, desc);
+		}
+
+		/**
+		 * Private and synthetic members are not part of the ABI
+		 */
+		boolean isApi(int access) {
+			return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) == 0;
+		}
+
+		/**
+		 * Return the ABI entries if a member with the given access is part of
+		 * the ABI, null otherwise
+		 */
+		List<String> getAbiEntries(int memberAccess) {
+			return isApi(memberAccess) ? abiEntries : null;
+		}
+
+		@Override
+		public void visitEnd() {
+			if (memberReferenceCount > 0) {
+				classModel.setMemberReferenceIds(memberReferenceIds,
+						memberReferenceCount);
+			}
+			classModel.setAbiFingerprint(partOfAbi ? AbiFingerprint
+					.of(abiEntries) : 0);
 		}
 
 	}
 
 	public class ParsingFieldVisitor extends FieldVisitor {
 
+		private final ParsingClassVisitor classVisitor;
 		private ClassModel classModel;
+		private final int access;
+		private final String name;
+		private final String desc;
 
-		public ParsingFieldVisitor(ClassModel classModel) {
+		public ParsingFieldVisitor(ParsingClassVisitor classVisitor,
+				int access, String name, String desc) {
 			super(Opcodes.ASM5);
-			this.classModel = classModel;
+			this.classVisitor = classVisitor;
+			this.classModel = classVisitor.classModel;
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
-			return new ParsingAnnotationVisitor(classModel);
+			classModel.addAnnotation(new AnnotatedElement(classModel, Type
+					.getType(desc).getClassName(), Kind.FIELD, name, this.desc,
+					-1));
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
+			return new ParsingAnnotationVisitor(classModel,
+					classVisitor.getAbiEntries(access), "annotation " + name
+							+ " " + desc);
 		}
 
 		@Override
 		public AnnotationVisitor visitTypeAnnotation(int typeRef,
 				TypePath typePath, String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
 			return new ParsingAnnotationVisitor(classModel);
 		}
 
@@ -304,141 +436,234 @@ public class ClassParser {
 
 		private ClassModel classModel;
 
+		/**
+		 * Receive the ABI entry of the annotation, including its values, when
+		 * the annotation has been visited. Null if the annotation is not part
+		 * of the ABI.
+		 */
+		private final List<String> abiEntries;
+		private final StringBuilder abiEntry;
+
+		/**
+		 * Nesting depth of the annotation and array values being visited
+		 */
+		private int depth;
+
 		public ParsingAnnotationVisitor(ClassModel classModel) {
+			this(classModel, null, null);
+		}
+
+		public ParsingAnnotationVisitor(ClassModel classModel,
+				List<String> abiEntries, String abiEntryPrefix) {
 			super(Opcodes.ASM5);
 			this.classModel = classModel;
+			this.abiEntries = abiEntries;
+			abiEntry = abiEntries == null ? null : new StringBuilder(
+					abiEntryPrefix);
+		}
+
+		private void appendAbiValue(String name, String value) {
+			if (abiEntry != null) {
+				abiEntry.append(' ').append(name).append('=').append(value);
+			}
+		}
+
+		@Override
+		public void visitEnd() {
+			if (depth > 0) {
+				depth--;
+				appendAbiValue("", "end");
+			} else if (abiEntry != null) {
+				abiEntries.add(abiEntry.toString());
+			}
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String name, String desc) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
+			depth++;
+			appendAbiValue(name, "@" + desc);
 			return this;
 		}
 
 		@Override
 		public void visit(String name, Object value) {
+			if (abiEntry != null) {
+				if (value.getClass().isArray()) {
+					StringBuilder sb = new StringBuilder("[");
+					for (int i = 0; i < Array.getLength(value); i++) {
+						sb.append(Array.get(value, i)).append(',');
+					}
+					appendAbiValue(name, sb.append(']').toString());
+				} else {
+					appendAbiValue(name, value.getClass().getSimpleName()
+							+ ":" + value);
+				}
+			}
 			if (value instanceof Type) {
-				classModel.addUsesClassName(((Type) value).getClassName());
+				classModel.addUsesClassName(((Type) value).getClassName(),
+						DependencyKind.ANNOTATION);
 			}
 			if (value instanceof Type[]) {
 				for (Type t : (Type[]) value) {
-					classModel.addUsesClassName(t.getClassName());
+					classModel.addUsesClassName(t.getClassName(),
+							DependencyKind.ANNOTATION);
 				}
 			}
 		}
 
 		@Override
 		public AnnotationVisitor visitArray(String name) {
+			depth++;
+			appendAbiValue(name, "[");
 			return this;
 		}
 
 		@Override
 		public void visitEnum(String name, String desc, String value) {
-			classModel
-			.addUsesClassName(Type.getObjectType(desc).getClassName());
+			appendAbiValue(name, desc + "." + value);
+			classModel.addUsesClassName(Type.getType(desc).getClassName(),
+					DependencyKind.ANNOTATION);
 		}
 	}
 
 	public class ParsingMethodVisitor extends MethodVisitor {
 
+		private final ParsingClassVisitor classVisitor;
 		private ClassModel classModel;
+		private final int access;
+		private final String name;
+		private final String desc;
 
-		public ParsingMethodVisitor(ClassModel classModel) {
+		public ParsingMethodVisitor(ParsingClassVisitor classVisitor,
+				int access, String name, String desc) {
 			super(Opcodes.ASM5);
-			this.classModel = classModel;
+			this.classVisitor = classVisitor;
+			this.classModel = classVisitor.classModel;
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
-			return new ParsingAnnotationVisitor(classModel);
+			classModel.addAnnotation(new AnnotatedElement(classModel, Type
+					.getType(desc).getClassName(), Kind.METHOD, name,
+					this.desc, -1));
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
+			return new ParsingAnnotationVisitor(classModel,
+					classVisitor.getAbiEntries(access), "annotation " + name
+							+ this.desc + " " + desc);
 		}
 
 		@Override
 		public AnnotationVisitor visitAnnotationDefault() {
-			return new ParsingAnnotationVisitor(classModel);
+			return new ParsingAnnotationVisitor(classModel,
+					classVisitor.getAbiEntries(access), "default " + name
+							+ this.desc);
 		}
 
 		@Override
 		public AnnotationVisitor visitTypeAnnotation(int typeRef,
 				TypePath typePath, String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
 			return new ParsingAnnotationVisitor(classModel);
 		}
 
 		@Override
 		public AnnotationVisitor visitParameterAnnotation(int parameter,
 				String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
-			return new ParsingAnnotationVisitor(classModel);
+			classModel.addAnnotation(new AnnotatedElement(classModel, Type
+					.getType(desc).getClassName(), Kind.PARAMETER, name,
+					this.desc, parameter));
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
+			return new ParsingAnnotationVisitor(classModel,
+					classVisitor.getAbiEntries(access), "annotation " + name
+							+ this.desc + " " + parameter + " " + desc);
 		}
 
 		@Override
 		public void visitTypeInsn(int opcode, String type) {
-			handleType(classModel, type);
+			handleType(classModel, type, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public void visitFieldInsn(int opcode, String owner, String name,
 				String desc) {
-			handleTypeDescriptor(classModel, desc);
+			handleMemberInsn(owner, name, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public void visitMethodInsn(int opcode, String owner, String name,
 				String desc) {
-			handleMethodDescriptor(classModel, desc);
+			handleMemberInsn(owner, name, desc);
+			handleMethodDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public void visitMethodInsn(int opcode, String owner, String name,
 				String desc, boolean itf) {
-			handleMethodDescriptor(classModel, desc);
+			handleMemberInsn(owner, name, desc);
+			handleMethodDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
+		}
+
+		/**
+		 * In member-level mode, the member is recorded and its owner is a
+		 * dependency even if the descriptor does not mention it, for example
+		 * for static method calls
+		 */
+		private void handleMemberInsn(String owner, String name, String desc) {
+			if (recordMemberReferences) {
+				handleType(classModel, owner, DependencyKind.METHOD_BODY);
+				classVisitor.addMemberReference(owner, name, desc);
+			}
 		}
 
 		@Override
 		public void visitInvokeDynamicInsn(String name, String desc,
 				Handle bsm, Object... bsmArgs) {
-			handleMethodDescriptor(classModel, desc);
+			handleMethodDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public void visitMultiANewArrayInsn(String desc, int dims) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public AnnotationVisitor visitInsnAnnotation(int typeRef,
 				TypePath typePath, String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
 			return new ParsingAnnotationVisitor(classModel);
 		}
 
 		@Override
 		public void visitTryCatchBlock(Label start, Label end, Label handler,
 				String type) {
-			handleType(classModel, type);
+			handleType(classModel, type, DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public AnnotationVisitor visitTryCatchAnnotation(int typeRef,
 				TypePath typePath, String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
 			return new ParsingAnnotationVisitor(classModel);
 		}
 
 		@Override
 		public void visitLocalVariable(String name, String desc,
 				String signature, Label start, Label end, int index) {
-			handleTypeDescriptor(classModel, desc);
-			handleFieldSignature(classModel, signature);
+			handleTypeDescriptor(classModel, desc, DependencyKind.METHOD_BODY);
+			handleFieldSignature(classModel, signature,
+					DependencyKind.METHOD_BODY);
 		}
 
 		@Override
 		public AnnotationVisitor visitLocalVariableAnnotation(int typeRef,
 				TypePath typePath, Label[] start, Label[] end, int[] index,
 				String desc, boolean visible) {
-			handleTypeDescriptor(classModel, desc);
+			handleTypeDescriptor(classModel, desc, DependencyKind.ANNOTATION);
 			return new ParsingAnnotationVisitor(classModel);
 		}
 
@@ -447,45 +672,50 @@ public class ClassParser {
 			if (cst instanceof Type) {
 				Type type = (Type) cst;
 				if (type.getSort() == Type.OBJECT) {
-					handleType(classModel, type);
+					handleType(classModel, type, DependencyKind.METHOD_BODY);
 				} else if (type.getSort() == Type.ARRAY) {
-					handleType(classModel, type.getElementType());
+					handleType(classModel, type.getElementType(),
+							DependencyKind.METHOD_BODY);
 				}
 			}
 		}
 	}
 
 	public void handleClassOrMethodSignature(ClassModel classModel,
-			String signature) {
+			String signature, int kind) {
 		if (signature != null) {
 			SignatureReader reader = new SignatureReader(signature);
-			reader.accept(new ParsingSignatureReader(classModel));
+			reader.accept(new ParsingSignatureReader(classModel, kind));
 		}
 	}
 
-	public void handleFieldSignature(ClassModel classModel, String signature) {
+	public void handleFieldSignature(ClassModel classModel, String signature,
+			int kind) {
 		if (signature != null) {
 			SignatureReader reader = new SignatureReader(signature);
-			reader.acceptType(new ParsingSignatureReader(classModel));
+			reader.acceptType(new ParsingSignatureReader(classModel, kind));
 		}
 
 	}
 
-	public void handleMethodDescriptor(ClassModel classModel, String desc) {
+	public void handleMethodDescriptor(ClassModel classModel, String desc,
+			int kind) {
 		Type type = Type.getType(desc);
-		handleType(classModel, type.getReturnType());
+		handleType(classModel, type.getReturnType(), kind);
 		for (Type p : type.getArgumentTypes()) {
-			handleType(classModel, p);
+			handleType(classModel, p, kind);
 		}
 	}
 
 	public class ParsingSignatureReader extends SignatureVisitor {
 
 		private ClassModel classModel;
+		private final int kind;
 
-		public ParsingSignatureReader(ClassModel classModel) {
+		public ParsingSignatureReader(ClassModel classModel, int kind) {
 			super(Opcodes.ASM5);
 			this.classModel = classModel;
+			this.kind = kind;
 		}
 
 		@Override
@@ -530,22 +760,38 @@ public class ClassParser {
 
 		@Override
 		public void visitClassType(String name) {
-			handleType(classModel, name);
+			handleType(classModel, name, kind);
 		}
 	}
 
-	void handleTypeDescriptor(ClassModel classModel, String desc) {
-		handleType(classModel, Type.getType(desc));
+	/**
+	 * Record the type described by the descriptor as used class, with the
+	 * given {@link DependencyKind}
+	 */
+	void handleTypeDescriptor(ClassModel classModel, String desc, int kind) {
+		handleType(classModel, Type.getType(desc), kind);
 	}
 
-	void handleType(ClassModel classModel, String internalName) {
+	/**
+	 * Handle an internal name. Owners of member instructions and type
+	 * instructions can be array types, which are mapped to their element
+	 * type. Primitive arrays are skipped.
+	 */
+	void handleType(ClassModel classModel, String internalName, int kind) {
 		if (internalName != null) {
-			handleType(classModel, Type.getObjectType(internalName));
+			Type type = Type.getObjectType(internalName);
+			if (type.getSort() == Type.ARRAY) {
+				type = type.getElementType();
+				if (type.getSort() != Type.OBJECT) {
+					return;
+				}
+			}
+			handleType(classModel, type, kind);
 		}
 	}
 
-	void handleType(ClassModel classModel, Type type) {
-		classModel.addUsesClassName(type.getClassName());
+	void handleType(ClassModel classModel, Type type, int kind) {
+		classModel.addUsesClassName(type.getClassName(), kind);
 	}
 
 }
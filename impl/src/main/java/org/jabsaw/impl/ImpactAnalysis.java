@@ -0,0 +1,138 @@
+package org.jabsaw.impl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyGraph;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Determines the classes and modules affected by a set of changed classes.
+ * A class is affected if it is changed itself or uses an affected class.
+ */
+public class ImpactAnalysis {
+
+	private final ProjectModel project;
+
+	public ImpactAnalysis(ProjectModel project) {
+		project.checkDependenciesResolved();
+		this.project = project;
+	}
+
+	/**
+	 * Result of an {@link ImpactAnalysis}
+	 */
+	public static class Result {
+		final Set<ClassModel> changedClasses = new HashSet<>();
+		final Set<ClassModel> affectedClasses = new HashSet<>();
+		final Set<ModuleModel> affectedModules = new HashSet<>();
+		final Set<String> unknownClassNames = new HashSet<>();
+
+		/**
+		 * The changed classes found in the project. Nested classes are
+		 * represented by their toplevel class.
+		 */
+		public Set<ClassModel> getChangedClasses() {
+			return changedClasses;
+		}
+
+		/**
+		 * All classes transitively using a changed class, including the
+		 * changed classes themselves.
+		 */
+		public Set<ClassModel> getAffectedClasses() {
+			return affectedClasses;
+		}
+
+		/**
+		 * The modules containing at least one affected class
+		 */
+		public Set<ModuleModel> getAffectedModules() {
+			return affectedModules;
+		}
+
+		/**
+		 * Names of changed classes which are not part of the project, for
+		 * example because they have been deleted.
+		 */
+		public Set<String> getUnknownClassNames() {
+			return unknownClassNames;
+		}
+	}
+
+	/**
+	 * Determine the classes and modules affected by changes to the given
+	 * classes. The changes are given as qualified class names, nested classes
+	 * are mapped to their toplevel class.
+	 */
+	public Result analyze(Collection<String> changedClassNames) {
+		Result result = new Result();
+		DependencyGraph graph = project.getDependencyGraph();
+
+		BitSet changed = new BitSet();
+		for (String name : changedClassNames) {
+			ClassModel clazz = project.findClassModel(name);
+			if (clazz == null) {
+				result.unknownClassNames.add(name);
+			} else {
+				result.changedClasses.add(clazz);
+				changed.set(graph.getId(clazz));
+			}
+		}
+
+		BitSet affected = graph.getClassGraph().reachable(changed, true);
+		for (int id = affected.nextSetBit(0); id >= 0; id = affected
+				.nextSetBit(id + 1)) {
+			ClassModel clazz = graph.getClass(id);
+			result.affectedClasses.add(clazz);
+			if (clazz.getModule() != null) {
+				result.affectedModules.add(clazz.getModule());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Convert a changed file to a qualified class name. Absolute paths and
+	 * paths relative to the working directory are made relative to the first
+	 * input directory containing them, other paths are interpreted relative
+	 * to the input directories. Entries not ending in ".class" are taken as
+	 * qualified class names. Returns null for files which can not be mapped
+	 * to a class.
+	 */
+	public static String toClassName(String changedFile,
+			List<Path> inputDirectories) {
+		if (!changedFile.endsWith(".class")) {
+			return changedFile;
+		}
+
+		Path file = Paths.get(changedFile);
+		Path absoluteFile = file.toAbsolutePath().normalize();
+		for (Path dir : inputDirectories) {
+			Path absoluteDir = dir.toAbsolutePath().normalize();
+			if (absoluteFile.startsWith(absoluteDir)) {
+				file = absoluteDir.relativize(absoluteFile);
+				break;
+			}
+		}
+		if (file.isAbsolute()) {
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (Path part : file.normalize()) {
+			if (sb.length() > 0) {
+				sb.append('.');
+			}
+			sb.append(part.toString());
+		}
+		return sb.substring(0, sb.length() - ".class".length());
+	}
+}
@@ -0,0 +1,674 @@
+package org.jabsaw.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jabsaw.impl.model.AnnotatedElement;
+import org.jabsaw.impl.model.AnnotatedElement.Kind;
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.MemberReference;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.impl.pattern.ClassPattern;
+
+/**
+ * Compact binary representation of the information gathered by the
+ * {@link ClassParser}: classes with their nesting, supertypes, access flags,
+ * annotations, used class names with their dependency kinds, used members,
+ * class file sizes, ABI fingerprints, and the module declarations. Reading an
+ * index into a {@link ProjectModel} is equivalent to parsing the indexed
+ * classes, but does not require any bytecode to be read.
+ *
+ * <p>
+ * All strings are stored once in a sorted, front coded string table. Lists of
+ * referenced strings are sorted and stored as delta encoded variable length
+ * integers.
+ * </p>
+ */
+public class ModelIndex {
+
+	/**
+	 * Name of the index resource within a class path entry
+	 */
+	public static final String RESOURCE_NAME = "META-INF/jabsaw/index.bin";
+
+	private static final int MAGIC = 0x4a424958; // "JBIX"
+	private static final int VERSION = 6;
+
+	private ModelIndex() {
+	}
+
+	/**
+	 * Write an index of all classes and modules of the given project. The
+	 * project may be resolved already, nested classes are written as well.
+	 */
+	public static void write(ProjectModel project, OutputStream out)
+			throws IOException {
+		// linked classes and modules belong to other artifacts
+		List<ClassModel> classes = new ArrayList<>();
+		for (ClassModel clazz : project.getClasses().values()) {
+			if (!clazz.isLinked()) {
+				classes.add(clazz);
+				classes.addAll(clazz.getNestedClasses());
+			}
+		}
+		Collection<ModuleModel> modules = new ArrayList<>();
+		for (ModuleModel module : project.getModules().values()) {
+			if (!module.isLinked()) {
+				modules.add(module);
+			}
+		}
+
+		// build the string table
+		TreeSet<String> stringSet = new TreeSet<>();
+		for (ClassModel clazz : classes) {
+			stringSet.add(clazz.getQualifiedName());
+			if (clazz.outerClassName != null) {
+				stringSet.add(clazz.outerClassName);
+			}
+			if (clazz.superClassName != null) {
+				stringSet.add(clazz.superClassName);
+			}
+			stringSet.addAll(clazz.interfaceNames);
+			for (AnnotatedElement annotation : clazz.getAnnotations()) {
+				stringSet.add(annotation.getAnnotationName());
+				if (annotation.getMemberName() != null) {
+					stringSet.add(annotation.getMemberName());
+					stringSet.add(annotation.getMemberDescriptor());
+				}
+			}
+			stringSet.addAll(clazz.innerClassNames);
+			stringSet.addAll(clazz.getUsesClassNames());
+			for (MemberReference reference : clazz.getMemberReferences()) {
+				stringSet.add(reference.getOwnerName());
+				stringSet.add(reference.getName());
+				stringSet.add(reference.getDescriptor());
+			}
+		}
+		for (ModuleModel module : modules) {
+			stringSet.add(module.getQualifiedNameOfRepresentingClass());
+			stringSet.add(module.getName());
+			if (module.getDescription() != null) {
+				stringSet.add(module.getDescription());
+			}
+			stringSet.addAll(module.getImportedModuleNames());
+			stringSet.addAll(module.getExportedModuleNames());
+			for (ClassPattern pattern : module.getInclusionPatterns()) {
+				stringSet.add(pattern.getOriginalPattern());
+			}
+			for (ClassPattern pattern : module.getExclusionPatterns()) {
+				stringSet.add(pattern.getOriginalPattern());
+			}
+		}
+		Map<String, Integer> stringIds = new HashMap<>();
+		for (String s : stringSet) {
+			stringIds.put(s, stringIds.size());
+		}
+
+		Encoder encoder = new Encoder();
+		encoder.writeInt(MAGIC);
+		encoder.writeInt(VERSION);
+
+		// strings
+		encoder.writeVarInt(stringSet.size());
+		String previous = "";
+		for (String s : stringSet) {
+			int prefix = 0;
+			int max = Math.min(previous.length(), s.length());
+			while (prefix < max && previous.charAt(prefix) == s.charAt(prefix)) {
+				prefix++;
+			}
+			encoder.writeVarInt(prefix);
+			encoder.writeString(s.substring(prefix));
+			previous = s;
+		}
+
+		// classes
+		encoder.writeVarInt(classes.size());
+		for (ClassModel clazz : classes) {
+			encoder.writeVarInt(stringIds.get(clazz.getQualifiedName()));
+			encoder.writeVarInt(clazz.outerClassName == null ? 0 : stringIds
+					.get(clazz.outerClassName) + 1);
+			encoder.writeVarInt(clazz.superClassName == null ? 0 : stringIds
+					.get(clazz.superClassName) + 1);
+			encoder.writeIds(clazz.interfaceNames, stringIds);
+			encoder.writeVarInt(clazz.getAccess());
+			encoder.writeVarInt(clazz.getAnnotations().size());
+			for (AnnotatedElement annotation : clazz.getAnnotations()) {
+				encoder.writeVarInt(stringIds.get(annotation
+						.getAnnotationName()));
+				encoder.writeVarInt(annotation.getKind().ordinal());
+				if (annotation.getMemberName() == null) {
+					encoder.writeVarInt(0);
+				} else {
+					encoder.writeVarInt(stringIds.get(annotation
+							.getMemberName()) + 1);
+					encoder.writeVarInt(stringIds.get(annotation
+							.getMemberDescriptor()));
+				}
+				encoder.writeVarInt(annotation.getParameter() + 1);
+			}
+			encoder.writeIds(clazz.innerClassNames, stringIds);
+			encoder.writeIdKinds(clazz.getUsesClassNameKinds(), stringIds);
+			encoder.writeVarLong(clazz.getOwnClassFileSize());
+			encoder.writeLong(clazz.getOwnAbiFingerprint());
+			encoder.writeVarInt(clazz.getMemberReferenceIds().length);
+			for (MemberReference reference : clazz.getMemberReferences()) {
+				encoder.writeVarInt(stringIds.get(reference.getOwnerName()));
+				encoder.writeVarInt(stringIds.get(reference.getName()));
+				encoder.writeVarInt(stringIds.get(reference.getDescriptor()));
+			}
+		}
+
+		// modules
+		encoder.writeVarInt(modules.size());
+		for (ModuleModel module : modules) {
+			encoder.writeVarInt(stringIds.get(module
+					.getQualifiedNameOfRepresentingClass()));
+			encoder.writeVarInt(stringIds.get(module.getName()));
+			encoder.writeVarInt(module.getDescription() == null ? 0
+					: stringIds.get(module.getDescription()) + 1);
+			encoder.writeVarInt(module.isHideFromDependencyGraphOutput() ? 1
+					: 0);
+			encoder.writeIds(module.getImportedModuleNames(), stringIds);
+			encoder.writeIds(module.getExportedModuleNames(), stringIds);
+			encoder.writeIds(getOriginalPatterns(module.getInclusionPatterns()),
+					stringIds);
+			encoder.writeIds(getOriginalPatterns(module.getExclusionPatterns()),
+					stringIds);
+		}
+
+		encoder.writeTo(out);
+	}
+
+	private static List<String> getOriginalPatterns(
+			Collection<ClassPattern> patterns) {
+		List<String> result = new ArrayList<>();
+		for (ClassPattern pattern : patterns) {
+			result.add(pattern.getOriginalPattern());
+		}
+		return result;
+	}
+
+	/**
+	 * Read the index in the given file into the project. The file is memory
+	 * mapped.
+	 */
+	public static void read(Path file, ProjectModel project)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+					project);
+		}
+	}
+
+	/**
+	 * Read the index from the given stream into the project.
+	 */
+	public static void read(InputStream in, ProjectModel project)
+			throws IOException {
+		read(readFully(in), project);
+	}
+
+	/**
+	 * Check if the given file starts with the magic number of an index. Only
+	 * the first bytes of the file are read.
+	 */
+	static boolean startsWithMagic(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				Files.newInputStream(file))) {
+			return in.readInt() == MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Check if the given buffer contains an index of the version supported by
+	 * this class. The position of the buffer is not changed.
+	 */
+	static boolean isSupported(ByteBuffer buffer) {
+		int position = buffer.position();
+		return buffer.remaining() >= 8 && buffer.getInt(position) == MAGIC
+				&& buffer.getInt(position + 4) == VERSION;
+	}
+
+	static ByteBuffer readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int count;
+		while ((count = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, count);
+		}
+		return ByteBuffer.wrap(out.toByteArray());
+	}
+
+	/**
+	 * Read an index into the given project, which must not be resolved yet.
+	 * The classes and modules are added to the project just as if the indexed
+	 * classes were parsed.
+	 */
+	public static void read(ByteBuffer buffer, ProjectModel project)
+			throws IOException {
+		read(buffer, project, false);
+	}
+
+	/**
+	 * Read an index into the given project. If linked is true, the classes
+	 * and modules read are marked as linked (see {@link SummaryLinker}) and
+	 * only the information required to resolve modules is kept: annotations,
+	 * member references and ABI fingerprints are skipped. The
+	 * whole index is decoded before anything is added to the project, thus
+	 * the project is left unchanged if the index is corrupt.
+	 */
+	static void read(ByteBuffer buffer, ProjectModel project, boolean linked)
+			throws IOException {
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a JabSaw model index");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported model index version " + version);
+		}
+
+		List<IndexedClass> classes;
+		List<IndexedModule> modules;
+		try {
+			Decoder decoder = new Decoder(buffer);
+			String[] strings = readStrings(decoder);
+			classes = readClasses(decoder, strings, linked);
+			modules = readModules(decoder, strings);
+		} catch (RuntimeException e) {
+			// buffer underflows, invalid string ids and the like
+			throw new IOException("Corrupt model index", e);
+		}
+
+		for (IndexedClass indexed : classes) {
+			indexed.addTo(project, linked);
+		}
+		for (IndexedModule indexed : modules) {
+			indexed.addTo(project, linked);
+		}
+	}
+
+	private static String[] readStrings(Decoder decoder) {
+		String[] strings = new String[decoder.readCount()];
+		String previous = "";
+		for (int i = 0; i < strings.length; i++) {
+			int prefix = decoder.readVarInt();
+			strings[i] = previous.substring(0, prefix) + decoder.readString();
+			previous = strings[i];
+		}
+		return strings;
+	}
+
+	/**
+	 * Read the classes. If linked is true, annotations, member references and
+	 * the ABI fingerprints are skipped.
+	 */
+	private static List<IndexedClass> readClasses(Decoder decoder,
+			String[] strings, boolean linked) {
+		int classCount = decoder.readCount();
+		List<IndexedClass> result = new ArrayList<>();
+		for (int i = 0; i < classCount; i++) {
+			IndexedClass clazz = new IndexedClass();
+			clazz.name = strings[decoder.readVarInt()];
+			int outer = decoder.readVarInt();
+			if (outer > 0) {
+				clazz.outerClassName = strings[outer - 1];
+			}
+			int superClass = decoder.readVarInt();
+			if (superClass > 0) {
+				clazz.superClassName = strings[superClass - 1];
+			}
+			clazz.interfaceNames = toStrings(decoder.readIds(), strings);
+			clazz.access = decoder.readVarInt();
+			int annotationCount = decoder.readCount();
+			if (linked) {
+				for (int a = 0; a < annotationCount; a++) {
+					decoder.readVarInt();
+					decoder.readVarInt();
+					if (decoder.readVarInt() > 0) {
+						decoder.readVarInt();
+					}
+					decoder.readVarInt();
+				}
+				annotationCount = 0;
+			}
+			clazz.annotations = new String[annotationCount][];
+			clazz.annotationKinds = new Kind[annotationCount];
+			clazz.annotationParameters = new int[annotationCount];
+			for (int a = 0; a < annotationCount; a++) {
+				String annotationName = strings[decoder.readVarInt()];
+				clazz.annotationKinds[a] = Kind.values()[decoder.readVarInt()];
+				int member = decoder.readVarInt();
+				String memberName = null;
+				String memberDescriptor = null;
+				if (member > 0) {
+					memberName = strings[member - 1];
+					memberDescriptor = strings[decoder.readVarInt()];
+				}
+				clazz.annotations[a] = new String[] { annotationName,
+						memberName, memberDescriptor };
+				clazz.annotationParameters[a] = decoder.readVarInt() - 1;
+			}
+			clazz.innerClassNames = toStrings(decoder.readIds(), strings);
+			int usesCount = decoder.readCount();
+			clazz.usesClassNames = new String[usesCount];
+			clazz.usesClassKinds = new int[usesCount];
+			int usesId = 0;
+			for (int u = 0; u < usesCount; u++) {
+				usesId += decoder.readVarInt();
+				clazz.usesClassNames[u] = strings[usesId];
+				clazz.usesClassKinds[u] = decoder.readVarInt();
+			}
+			clazz.classFileSize = decoder.readVarLong();
+			clazz.abiFingerprint = decoder.readLong();
+			int referenceCount = decoder.readCount();
+			if (linked) {
+				for (int r = 0; r < referenceCount * 3; r++) {
+					decoder.readVarInt();
+				}
+				clazz.abiFingerprint = 0;
+				referenceCount = 0;
+			}
+			clazz.memberReferences = new String[referenceCount * 3];
+			for (int r = 0; r < clazz.memberReferences.length; r++) {
+				clazz.memberReferences[r] = strings[decoder.readVarInt()];
+			}
+			result.add(clazz);
+		}
+		return result;
+	}
+
+	private static List<IndexedModule> readModules(Decoder decoder,
+			String[] strings) {
+		int moduleCount = decoder.readCount();
+		List<IndexedModule> result = new ArrayList<>();
+		for (int i = 0; i < moduleCount; i++) {
+			IndexedModule module = new IndexedModule();
+			module.qualifiedName = strings[decoder.readVarInt()];
+			module.name = strings[decoder.readVarInt()];
+			int description = decoder.readVarInt();
+			if (description > 0) {
+				module.description = strings[description - 1];
+			}
+			module.hideFromDependencyGraphOutput = decoder.readVarInt() == 1;
+			module.importedModuleNames = toStrings(decoder.readIds(), strings);
+			module.exportedModuleNames = toStrings(decoder.readIds(), strings);
+			module.inclusionPatterns = toStrings(decoder.readIds(), strings);
+			module.exclusionPatterns = toStrings(decoder.readIds(), strings);
+			result.add(module);
+		}
+		return result;
+	}
+
+	private static String[] toStrings(int[] ids, String[] strings) {
+		String[] result = new String[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			result[i] = strings[ids[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * A decoded class, not yet added to a project
+	 */
+	private static class IndexedClass {
+		String name;
+		String outerClassName;
+		String superClassName;
+		String[] interfaceNames;
+		int access;
+		/**
+		 * annotation name, member name and member descriptor of each
+		 * annotation
+		 */
+		String[][] annotations;
+		Kind[] annotationKinds;
+		int[] annotationParameters;
+		String[] innerClassNames;
+		String[] usesClassNames;
+		int[] usesClassKinds;
+		long classFileSize;
+		long abiFingerprint;
+		/**
+		 * owner, name and descriptor of each referenced member
+		 */
+		String[] memberReferences;
+
+		void addTo(ProjectModel project, boolean linked) {
+			ClassModel clazz = new ClassModel(project, name);
+			clazz.setLinked(linked);
+			clazz.outerClassName = outerClassName;
+			clazz.superClassName = superClassName;
+			clazz.interfaceNames.addAll(Arrays.asList(interfaceNames));
+			clazz.setAccess(access);
+			for (int a = 0; a < annotations.length; a++) {
+				clazz.addAnnotation(new AnnotatedElement(clazz,
+						annotations[a][0], annotationKinds[a],
+						annotations[a][1], annotations[a][2],
+						annotationParameters[a]));
+			}
+			clazz.innerClassNames.addAll(Arrays.asList(innerClassNames));
+			for (int u = 0; u < usesClassNames.length; u++) {
+				clazz.addUsesClassName(usesClassNames[u], usesClassKinds[u]);
+			}
+			clazz.setClassFileSize(classFileSize);
+			clazz.setAbiFingerprint(abiFingerprint);
+			int referenceCount = memberReferences.length / 3;
+			if (referenceCount > 0) {
+				int[] referenceIds = new int[referenceCount];
+				for (int r = 0; r < referenceCount; r++) {
+					referenceIds[r] = project.getMemberTable().intern(
+							memberReferences[3 * r],
+							memberReferences[3 * r + 1],
+							memberReferences[3 * r + 2]);
+				}
+				clazz.setMemberReferenceIds(referenceIds, referenceCount);
+			}
+		}
+	}
+
+	/**
+	 * A decoded module, not yet added to a project
+	 */
+	private static class IndexedModule {
+		String qualifiedName;
+		String name;
+		String description;
+		boolean hideFromDependencyGraphOutput;
+		String[] importedModuleNames;
+		String[] exportedModuleNames;
+		String[] inclusionPatterns;
+		String[] exclusionPatterns;
+
+		void addTo(ProjectModel project, boolean linked) {
+			ModuleModel module = new ModuleModel(project, qualifiedName);
+			module.setLinked(linked);
+			module.setName(name);
+			if (description != null) {
+				module.setDescription(description);
+			}
+			module.setHideFromDependencyGraphOutput(hideFromDependencyGraphOutput);
+			for (String imported : importedModuleNames) {
+				module.addImportedModuleName(imported);
+			}
+			for (String exported : exportedModuleNames) {
+				module.addExportedModuleName(exported);
+			}
+			for (String pattern : inclusionPatterns) {
+				module.addInclusionPattern(new ClassPattern(
+						module.getPackage(), pattern));
+			}
+			for (String pattern : exclusionPatterns) {
+				module.addExclusionPattern(new ClassPattern(
+						module.getPackage(), pattern));
+			}
+		}
+	}
+
+	private static class Encoder {
+		private byte[] bytes = new byte[1024];
+		private int size;
+
+		private void ensureCapacity(int additional) {
+			if (size + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes,
+						Math.max(bytes.length * 2, size + additional));
+			}
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(4);
+			bytes[size++] = (byte) (value >>> 24);
+			bytes[size++] = (byte) (value >>> 16);
+			bytes[size++] = (byte) (value >>> 8);
+			bytes[size++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		void writeVarInt(int value) {
+			writeVarLong(value & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeString(String s) {
+			byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(utf8.length);
+			ensureCapacity(utf8.length);
+			System.arraycopy(utf8, 0, bytes, size, utf8.length);
+			size += utf8.length;
+		}
+
+		/**
+		 * Write the ids of the given strings as sorted, delta encoded list
+		 */
+		void writeIds(Collection<String> strings, Map<String, Integer> ids) {
+			int[] values = new int[strings.size()];
+			int i = 0;
+			for (String s : strings) {
+				values[i++] = ids.get(s);
+			}
+			Arrays.sort(values);
+			writeVarInt(values.length);
+			int previous = 0;
+			for (int value : values) {
+				writeVarInt(value - previous);
+				previous = value;
+			}
+		}
+
+		/**
+		 * Write the ids of the keys as sorted deltas, each followed by the
+		 * value of the key
+		 */
+		void writeIdKinds(Map<String, Integer> kinds, Map<String, Integer> ids) {
+			TreeMap<Integer, Integer> sorted = new TreeMap<>();
+			for (Map.Entry<String, Integer> entry : kinds.entrySet()) {
+				sorted.put(ids.get(entry.getKey()), entry.getValue());
+			}
+			writeVarInt(sorted.size());
+			int previous = 0;
+			for (Map.Entry<Integer, Integer> entry : sorted.entrySet()) {
+				writeVarInt(entry.getKey() - previous);
+				writeVarInt(entry.getValue());
+				previous = entry.getKey();
+			}
+		}
+
+		void writeTo(OutputStream out) throws IOException {
+			out.write(bytes, 0, size);
+			out.flush();
+		}
+	}
+
+	private static class Decoder {
+		private final ByteBuffer buffer;
+
+		Decoder(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		long readLong() {
+			return buffer.getLong();
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			while (true) {
+				byte b = buffer.get();
+				result |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return result;
+				}
+				shift += 7;
+			}
+		}
+
+		/**
+		 * Read the number of elements of a list. Each element occupies at
+		 * least one byte, which protects against allocating huge arrays for
+		 * corrupt indexes.
+		 */
+		int readCount() {
+			int count = readVarInt();
+			if (count < 0 || count > buffer.remaining()) {
+				throw new IllegalStateException("Invalid count " + count);
+			}
+			return count;
+		}
+
+		String readString() {
+			byte[] utf8 = new byte[readCount()];
+			buffer.get(utf8);
+			return new String(utf8, StandardCharsets.UTF_8);
+		}
+
+		int[] readIds() {
+			int[] result = new int[readCount()];
+			int previous = 0;
+			for (int i = 0; i < result.length; i++) {
+				previous += readVarInt();
+				result[i] = previous;
+			}
+			return result;
+		}
+	}
+}
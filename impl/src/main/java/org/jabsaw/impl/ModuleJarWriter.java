@@ -0,0 +1,130 @@
+package org.jabsaw.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Writes a jar file per module, containing only the classes the module
+ * requires (see {@link ModuleModel#getAllClassDependencies()}) and the
+ * resources located in the packages of these classes. The files are streamed
+ * directly from the class directories.
+ */
+public class ModuleJarWriter {
+
+	private final List<Path> classDirectories;
+
+	/**
+	 * @param classDirectories
+	 *            directories the classes of the project have been parsed from.
+	 *            Required classes not found in these directories are not
+	 *            included in the jars.
+	 */
+	public ModuleJarWriter(List<Path> classDirectories) {
+		this.classDirectories = classDirectories;
+	}
+
+	/**
+	 * Write a jar for each module of the project to the given directory. The
+	 * jars are named after the identification of the modules. Modules linked
+	 * from the summaries of other artifacts are skipped.
+	 */
+	public void writeAll(ProjectModel project, Path outputDirectory)
+			throws IOException {
+		Files.createDirectories(outputDirectory);
+		for (ModuleModel module : project.getModules().values()) {
+			if (module.isLinked()) {
+				continue;
+			}
+			write(module,
+					outputDirectory.resolve(module.getIdentification() + ".jar"));
+		}
+	}
+
+	/**
+	 * Write the jar of a single module. Returns the number of entries written.
+	 */
+	public int write(ModuleModel module, Path jarFile) throws IOException {
+		// collect the entries, sorted by name for reproducible jars
+		TreeMap<String, Path> entries = new TreeMap<>();
+		Set<Path> packageDirectories = new TreeSet<>();
+		for (ClassModel clazz : module.getAllClassDependencies()) {
+			addClassFile(entries, packageDirectories, clazz);
+			for (ClassModel nested : clazz.getNestedClasses()) {
+				addClassFile(entries, packageDirectories, nested);
+			}
+		}
+		for (Path dir : packageDirectories) {
+			addResources(entries, dir);
+		}
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+				"1.0");
+		try (OutputStream out = new BufferedOutputStream(
+				Files.newOutputStream(jarFile));
+				JarOutputStream jar = new JarOutputStream(out, manifest)) {
+			for (String name : entries.keySet()) {
+				jar.putNextEntry(new JarEntry(name));
+				Files.copy(entries.get(name), jar);
+				jar.closeEntry();
+			}
+		}
+		return entries.size();
+	}
+
+	private void addClassFile(TreeMap<String, Path> entries,
+			Set<Path> packageDirectories, ClassModel clazz) {
+		String name = clazz.getClassFileName();
+		for (Path dir : classDirectories) {
+			Path file = dir.resolve(name);
+			if (Files.isRegularFile(file)) {
+				entries.put(name, file);
+				packageDirectories.add(file.getParent());
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Add all files in the given package directory which are not class files.
+	 */
+	private void addResources(TreeMap<String, Path> entries, Path packageDir)
+			throws IOException {
+		Path root = null;
+		for (Path dir : classDirectories) {
+			if (packageDir.startsWith(dir)) {
+				root = dir;
+				break;
+			}
+		}
+		try (DirectoryStream<Path> stream = Files
+				.newDirectoryStream(packageDir)) {
+			for (Path file : stream) {
+				if (Files.isRegularFile(file)
+						&& !file.getFileName().toString().endsWith(".class")) {
+					String name = root.relativize(file).toString()
+							.replace(file.getFileSystem().getSeparator(), "/");
+					if (!entries.containsKey(name)) {
+						entries.put(name, file);
+					}
+				}
+			}
+		}
+	}
+}
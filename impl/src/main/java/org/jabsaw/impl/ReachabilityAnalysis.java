@@ -0,0 +1,213 @@
+package org.jabsaw.impl;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyGraph;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.impl.pattern.ClassPattern;
+
+/**
+ * Determines the classes which are not reachable from a set of entry points.
+ * These classes could be removed from a deployment.
+ */
+public class ReachabilityAnalysis {
+
+	private final ProjectModel project;
+
+	public ReachabilityAnalysis(ProjectModel project) {
+		project.checkDependenciesResolved();
+		this.project = project;
+	}
+
+	/**
+	 * Class counts and sizes of a single module, or of all classes in no
+	 * module.
+	 */
+	public static class ModuleStatistics {
+		private final ModuleModel module;
+		int classCount;
+		long classFileBytes;
+		int unreachableClassCount;
+		long unreachableClassFileBytes;
+
+		ModuleStatistics(ModuleModel module) {
+			this.module = module;
+		}
+
+		void add(ClassModel clazz, boolean unreachable) {
+			classCount++;
+			classFileBytes += clazz.getClassFileSize();
+			if (unreachable) {
+				unreachableClassCount++;
+				unreachableClassFileBytes += clazz.getClassFileSize();
+			}
+		}
+
+		/**
+		 * The module, or null for the classes in no module
+		 */
+		public ModuleModel getModule() {
+			return module;
+		}
+
+		public int getClassCount() {
+			return classCount;
+		}
+
+		public long getClassFileBytes() {
+			return classFileBytes;
+		}
+
+		public int getUnreachableClassCount() {
+			return unreachableClassCount;
+		}
+
+		public long getUnreachableClassFileBytes() {
+			return unreachableClassFileBytes;
+		}
+
+		@Override
+		public String toString() {
+			return (module == null ? "<no module>" : module.toString())
+					+ ": " + unreachableClassCount + " of " + classCount
+					+ " classes unreachable, " + unreachableClassFileBytes
+					+ " of " + classFileBytes + " bytes";
+		}
+	}
+
+	/**
+	 * Result of a {@link ReachabilityAnalysis}
+	 */
+	public static class Result {
+		final Set<ClassModel> entryClasses = new HashSet<>();
+		final Set<ClassModel> unreachableClasses = new HashSet<>();
+		final Map<ModuleModel, ModuleStatistics> moduleStatistics = new HashMap<>();
+		final ModuleStatistics total = new ModuleStatistics(null);
+
+		public Set<ClassModel> getEntryClasses() {
+			return Collections.unmodifiableSet(entryClasses);
+		}
+
+		public Set<ClassModel> getUnreachableClasses() {
+			return Collections.unmodifiableSet(unreachableClasses);
+		}
+
+		/**
+		 * Statistics per module. The classes in no module are found under the
+		 * null key.
+		 */
+		public Map<ModuleModel, ModuleStatistics> getModuleStatistics() {
+			return Collections.unmodifiableMap(moduleStatistics);
+		}
+
+		/**
+		 * Statistics over all classes
+		 */
+		public ModuleStatistics getTotal() {
+			return total;
+		}
+
+		/**
+		 * Print a human readable report
+		 */
+		public void print(PrintWriter out) {
+			out.println("Entry classes: " + entryClasses.size());
+			out.println("Unreachable: " + total.unreachableClassCount + " of "
+					+ total.classCount + " classes, "
+					+ total.unreachableClassFileBytes + " of "
+					+ total.classFileBytes + " bytes");
+
+			out.println("Per module:");
+			List<ModuleStatistics> statistics = new ArrayList<>(
+					moduleStatistics.values());
+			Collections.sort(statistics, new Comparator<ModuleStatistics>() {
+				@Override
+				public int compare(ModuleStatistics o1, ModuleStatistics o2) {
+					return Long.compare(o2.unreachableClassFileBytes,
+							o1.unreachableClassFileBytes);
+				}
+			});
+			for (ModuleStatistics s : statistics) {
+				out.println("  " + s);
+			}
+
+			out.println("Unreachable classes:");
+			List<String> names = new ArrayList<>();
+			for (ClassModel clazz : unreachableClasses) {
+				names.add(clazz.getQualifiedName());
+			}
+			Collections.sort(names);
+			for (String name : names) {
+				out.println("  " + name);
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Determine the classes unreachable from the given entry points. An entry
+	 * point either identifies a module, in which case all classes of the
+	 * module are entry classes, or is a class pattern as described in
+	 * {@link org.jabsaw.Module}, which can be a simple qualified class name.
+	 */
+	public Result analyze(Collection<String> entryPoints) {
+		Result result = new Result();
+		DependencyGraph graph = project.getDependencyGraph();
+
+		List<ClassPattern> patterns = new ArrayList<>();
+		for (String entryPoint : entryPoints) {
+			ModuleModel module = project.findModule(entryPoint);
+			if (module != null) {
+				result.entryClasses.addAll(module.getClasses());
+			} else {
+				patterns.add(new ClassPattern("", entryPoint));
+			}
+		}
+		if (!patterns.isEmpty()) {
+			for (ClassModel clazz : project.getClasses().values()) {
+				for (ClassPattern pattern : patterns) {
+					if (pattern.matches(clazz.getQualifiedName())) {
+						result.entryClasses.add(clazz);
+						break;
+					}
+				}
+			}
+		}
+
+		BitSet entries = new BitSet();
+		for (ClassModel clazz : result.entryClasses) {
+			entries.set(graph.getId(clazz));
+		}
+		BitSet reachable = graph.getClassGraph().reachable(entries, false);
+
+		int classCount = graph.getClassGraph().getNodeCount();
+		for (int id = 0; id < classCount; id++) {
+			ClassModel clazz = graph.getClass(id);
+			ModuleStatistics statistics = result.moduleStatistics.get(clazz
+					.getModule());
+			if (statistics == null) {
+				statistics = new ModuleStatistics(clazz.getModule());
+				result.moduleStatistics.put(clazz.getModule(), statistics);
+			}
+			boolean unreachable = !reachable.get(id);
+			if (unreachable) {
+				result.unreachableClasses.add(clazz);
+			}
+			statistics.add(clazz, unreachable);
+			result.total.add(clazz, unreachable);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,117 @@
+package org.jabsaw.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Links the summaries of other artifacts into a {@link ProjectModel}, without
+ * parsing their bytecode. A summary is the {@link ModelIndex} of an artifact,
+ * holding its classes with their external references and its module
+ * declarations. It is written by the writeModuleIndex parameter of the Maven
+ * plugin.
+ *
+ * <p>
+ * The classes and modules read from summaries are marked as linked (see
+ * {@link ClassModel#isLinked()}). They take part in resolving the module
+ * dependencies, but are neither checked nor written to the index of the
+ * project. Link the summaries before parsing the classes of the project, so
+ * the local classes take precedence over linked classes of the same name.
+ *
+ * <p>
+ * Only the class names with their nesting, supertypes and used classes and the
+ * module declarations are kept. Annotations, member references and ABI
+ * fingerprints are skipped while reading, since they only matter for the
+ * classes of the project.
+ */
+public class SummaryLinker {
+
+	private final ProjectModel project;
+
+	private final List<Path> linkedArtifacts = new ArrayList<>();
+	private final List<Path> artifactsWithoutSummary = new ArrayList<>();
+
+	public SummaryLinker(ProjectModel project) {
+		this.project = project;
+	}
+
+	/**
+	 * Link the summary of the given artifact. The artifact can be a jar file
+	 * or a class directory containing the summary as
+	 * {@link ModelIndex#RESOURCE_NAME}, or a summary file itself. Other files,
+	 * for example native libraries, are recognized by not starting with the
+	 * magic number of an index. Returns false if the artifact does not
+	 * contain a summary, or a summary written by a different version of
+	 * JabSaw.
+	 */
+	public boolean link(Path artifact) throws IOException {
+		ByteBuffer summary = null;
+		if (Files.isDirectory(artifact)) {
+			Path index = artifact.resolve(ModelIndex.RESOURCE_NAME);
+			if (Files.isRegularFile(index)) {
+				summary = ByteBuffer.wrap(Files.readAllBytes(index));
+			}
+		} else if (isArchive(artifact)) {
+			try (ZipFile zip = new ZipFile(artifact.toFile())) {
+				ZipEntry entry = zip.getEntry(ModelIndex.RESOURCE_NAME);
+				if (entry != null) {
+					try (InputStream in = zip.getInputStream(entry)) {
+						summary = ModelIndex.readFully(in);
+					}
+				}
+			}
+		} else if (ModelIndex.startsWithMagic(artifact)) {
+			summary = ByteBuffer.wrap(Files.readAllBytes(artifact));
+		}
+
+		if (summary == null || !ModelIndex.isSupported(summary)) {
+			artifactsWithoutSummary.add(artifact);
+			return false;
+		}
+		link(summary);
+		linkedArtifacts.add(artifact);
+		return true;
+	}
+
+	/**
+	 * Link the summary read from the given stream
+	 */
+	public void link(InputStream summary) throws IOException {
+		link(ModelIndex.readFully(summary));
+	}
+
+	private void link(ByteBuffer summary) throws IOException {
+		ModelIndex.read(summary, project, true);
+	}
+
+	private boolean isArchive(Path file) {
+		String name = file.getFileName().toString();
+		return name.endsWith(".jar") || name.endsWith(".zip")
+				|| name.endsWith(".war");
+	}
+
+	/**
+	 * The artifacts whose summary has been linked
+	 */
+	public List<Path> getLinkedArtifacts() {
+		return Collections.unmodifiableList(linkedArtifacts);
+	}
+
+	/**
+	 * The artifacts passed to {@link #link(Path)} which did not contain a
+	 * supported summary. Their classes are missing from the project.
+	 */
+	public List<Path> getArtifactsWithoutSummary() {
+		return Collections.unmodifiableList(artifactsWithoutSummary);
+	}
+}
@@ -0,0 +1,94 @@
+package org.jabsaw.impl.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Stable hashes of the application binary interface (ABI) of classes and
+ * modules. The ABI of a class consists of its header and its non-private
+ * fields, methods and annotations, as recorded by the parser. Classes using
+ * a class only need to be recompiled if its fingerprint changes.
+ */
+public final class AbiFingerprint {
+
+	private AbiFingerprint() {
+	}
+
+	/**
+	 * Hash the given entries, ignoring their order
+	 */
+	public static long of(List<String> entries) {
+		List<String> sorted = new ArrayList<>(entries);
+		Collections.sort(sorted);
+		MessageDigest digest = createDigest();
+		for (String entry : sorted) {
+			digest.update(entry.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		return toLong(digest.digest());
+	}
+
+	/**
+	 * Fingerprint of a module: the hash of the names and fingerprints
+	 * (including nested classes, see {@link ClassModel#getAbiFingerprint()})
+	 * of its classes.
+	 */
+	public static long of(ModuleModel module) {
+		List<ClassModel> classes = new ArrayList<>(module.getClasses());
+		Collections.sort(classes, new Comparator<ClassModel>() {
+			@Override
+			public int compare(ClassModel o1, ClassModel o2) {
+				return o1.getQualifiedName().compareTo(o2.getQualifiedName());
+			}
+		});
+		MessageDigest digest = createDigest();
+		for (ClassModel clazz : classes) {
+			digest.update(clazz.getQualifiedName().getBytes(
+					StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			update(digest, clazz.getAbiFingerprint());
+		}
+		return toLong(digest.digest());
+	}
+
+	/**
+	 * Combine the given fingerprints, ignoring their order
+	 */
+	static long combine(long[] fingerprints) {
+		long[] sorted = fingerprints.clone();
+		Arrays.sort(sorted);
+		MessageDigest digest = createDigest();
+		for (long fingerprint : sorted) {
+			update(digest, fingerprint);
+		}
+		return toLong(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, long value) {
+		for (int i = 56; i >= 0; i -= 8) {
+			digest.update((byte) (value >>> i));
+		}
+	}
+
+	private static long toLong(byte[] hash) {
+		long result = 0;
+		for (int i = 0; i < 8; i++) {
+			result = (result << 8) | (hash[i] & 0xFF);
+		}
+		return result;
+	}
+}
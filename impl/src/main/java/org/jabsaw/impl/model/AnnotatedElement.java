@@ -0,0 +1,87 @@
+package org.jabsaw.impl.model;
+
+/**
+ * An element of a class carrying an annotation: the class itself, a field, a
+ * method or a method parameter.
+ */
+public class AnnotatedElement {
+
+	public enum Kind {
+		CLASS, FIELD, METHOD, PARAMETER
+	}
+
+	private final ClassModel clazz;
+	private final String annotationName;
+	private final Kind kind;
+	private final String memberName;
+	private final String memberDescriptor;
+	private final int parameter;
+
+	/**
+	 * @param memberName
+	 *            name of the field or method, null for classes
+	 * @param memberDescriptor
+	 *            descriptor of the field or method, null for classes
+	 * @param parameter
+	 *            index of the annotated parameter, -1 if the element is no
+	 *            parameter
+	 */
+	public AnnotatedElement(ClassModel clazz, String annotationName,
+			Kind kind, String memberName, String memberDescriptor,
+			int parameter) {
+		this.clazz = clazz;
+		this.annotationName = annotationName;
+		this.kind = kind;
+		this.memberName = memberName;
+		this.memberDescriptor = memberDescriptor;
+		this.parameter = parameter;
+	}
+
+	/**
+	 * The class declaring the element. Nested classes are not merged into
+	 * their toplevel class.
+	 */
+	public ClassModel getClassModel() {
+		return clazz;
+	}
+
+	/**
+	 * Qualified name of the annotation type
+	 */
+	public String getAnnotationName() {
+		return annotationName;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getMemberName() {
+		return memberName;
+	}
+
+	public String getMemberDescriptor() {
+		return memberDescriptor;
+	}
+
+	public int getParameter() {
+		return parameter;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("@").append(annotationName).append(" ")
+				.append(clazz.getQualifiedName());
+		if (memberName != null) {
+			sb.append(".").append(memberName);
+			if (kind != Kind.FIELD) {
+				sb.append(memberDescriptor);
+			}
+		}
+		if (kind == Kind.PARAMETER) {
+			sb.append(" parameter ").append(parameter);
+		}
+		return sb.toString();
+	}
+}
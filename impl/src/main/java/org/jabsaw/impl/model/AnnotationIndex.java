@@ -0,0 +1,60 @@
+package org.jabsaw.impl.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the annotated elements of a project by annotation type. Contains
+ * the annotations of nested classes and their members as well.
+ */
+public class AnnotationIndex {
+
+	private final Map<String, List<AnnotatedElement>> elements = new HashMap<>();
+
+	AnnotationIndex(ProjectModel project) {
+		for (ClassModel clazz : project.getAllClasses()) {
+			add(clazz);
+		}
+	}
+
+	private void add(ClassModel clazz) {
+		for (AnnotatedElement element : clazz.getAnnotations()) {
+			List<AnnotatedElement> list = elements.get(element
+					.getAnnotationName());
+			if (list == null) {
+				list = new ArrayList<>();
+				elements.put(element.getAnnotationName(), list);
+			}
+			list.add(element);
+		}
+	}
+
+	/**
+	 * Return all elements annotated with the given annotation
+	 */
+	public List<AnnotatedElement> getAnnotatedElements(String annotationName) {
+		List<AnnotatedElement> result = elements.get(annotationName);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Return the classes annotated with the given annotation
+	 */
+	public Set<ClassModel> getAnnotatedClasses(String annotationName) {
+		Set<ClassModel> result = new LinkedHashSet<>();
+		for (AnnotatedElement element : getAnnotatedElements(annotationName)) {
+			if (element.getKind() == AnnotatedElement.Kind.CLASS) {
+				result.add(element.getClassModel());
+			}
+		}
+		return result;
+	}
+}
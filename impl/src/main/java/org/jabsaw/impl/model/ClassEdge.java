@@ -0,0 +1,50 @@
+package org.jabsaw.impl.model;
+
+/**
+ * A usage of one class by another class.
+ */
+public class ClassEdge {
+	private final ClassModel from;
+	private final ClassModel to;
+
+	public ClassEdge(ClassModel from, ClassModel to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * The using class
+	 */
+	public ClassModel getFrom() {
+		return from;
+	}
+
+	/**
+	 * The used class
+	 */
+	public ClassModel getTo() {
+		return to;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * from.hashCode() + to.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		ClassEdge other = (ClassEdge) obj;
+		return from.equals(other.from) && to.equals(other.to);
+	}
+
+	@Override
+	public String toString() {
+		return from + " -> " + to;
+	}
+}
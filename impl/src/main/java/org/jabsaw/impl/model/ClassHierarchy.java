@@ -0,0 +1,103 @@
+package org.jabsaw.impl.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the class hierarchy of a project, mapping each type to its direct
+ * subtypes. Nested classes are part of the index, even though they are merged
+ * into their toplevel class in the rest of the model. Supertypes outside the
+ * project (for example JDK interfaces) are indexed by name as well.
+ */
+public class ClassHierarchy {
+
+	/**
+	 * Direct subclasses and implementing classes or extending interfaces, by
+	 * qualified name of the supertype
+	 */
+	private final Map<String, List<ClassModel>> directSubtypes = new HashMap<>();
+
+	private final Map<String, ClassModel> classes = new HashMap<>();
+
+	ClassHierarchy(ProjectModel project) {
+		for (ClassModel clazz : project.getAllClasses()) {
+			add(clazz);
+		}
+	}
+
+	private void add(ClassModel clazz) {
+		classes.put(clazz.getQualifiedName(), clazz);
+		if (clazz.superClassName != null) {
+			addSubtype(clazz.superClassName, clazz);
+		}
+		for (String name : clazz.interfaceNames) {
+			addSubtype(name, clazz);
+		}
+	}
+
+	private void addSubtype(String supertype, ClassModel clazz) {
+		List<ClassModel> subtypes = directSubtypes.get(supertype);
+		if (subtypes == null) {
+			subtypes = new ArrayList<>(2);
+			directSubtypes.put(supertype, subtypes);
+		}
+		subtypes.add(clazz);
+	}
+
+	/**
+	 * Return the class with the given name, including nested classes
+	 */
+	public ClassModel getClass(String qualifiedName) {
+		return classes.get(qualifiedName);
+	}
+
+	/**
+	 * Return the direct subtypes of the given type
+	 */
+	public List<ClassModel> getDirectSubtypes(String qualifiedName) {
+		List<ClassModel> result = directSubtypes.get(qualifiedName);
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Return all transitive subtypes of the given type, not including the
+	 * type itself
+	 */
+	public Set<ClassModel> getSubtypes(String qualifiedName) {
+		Set<ClassModel> result = new LinkedHashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		pending.add(qualifiedName);
+		while (!pending.isEmpty()) {
+			for (ClassModel subtype : getDirectSubtypes(pending.poll())) {
+				if (result.add(subtype)) {
+					pending.add(subtype.getQualifiedName());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return all transitive subtypes of the given type which are neither
+	 * interfaces nor abstract
+	 */
+	public Set<ClassModel> getImplementations(String qualifiedName) {
+		Set<ClassModel> result = new LinkedHashSet<>();
+		for (ClassModel clazz : getSubtypes(qualifiedName)) {
+			if (!clazz.isInterface() && !clazz.isAbstract()) {
+				result.add(clazz);
+			}
+		}
+		return result;
+	}
+}
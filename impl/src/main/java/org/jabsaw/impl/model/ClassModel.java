@@ -1,10 +1,16 @@
 package org.jabsaw.impl.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.objectweb.asm.Opcodes;
+
 public class ClassModel implements ModelNode {
 
 	private final ProjectModel projectModel;
@@ -12,6 +18,11 @@ public class ClassModel implements ModelNode {
 
 	ClassModel outerClass;
 
+	/**
+	 * Index of this class in the {@link DependencyGraph}
+	 */
+	int id = -1;
+
 	public ClassModel(ProjectModel projectModel, String qualifiedName) {
 		this.projectModel = projectModel;
 		this.qualifiedName = qualifiedName;
@@ -20,8 +31,36 @@ public class ClassModel implements ModelNode {
 
 	ModuleModel module;
 
-	final Set<ClassModel> usesClasses = new HashSet<>();
-	final Set<String> usesClassNames = new HashSet<>();
+	/**
+	 * @see #getOwnClassFileSize()
+	 */
+	long classFileSize;
+
+	/**
+	 * Used classes with their {@link DependencyKind} mask
+	 */
+	final Map<ClassModel, Integer> usesClassKinds = new HashMap<>();
+
+	/**
+	 * Key set of {@link #usesClassKinds}
+	 */
+	final Set<ClassModel> usesClasses = usesClassKinds.keySet();
+
+	/**
+	 * @see #getNestedClasses()
+	 */
+	final Set<ClassModel> nestedClasses = new HashSet<>();
+
+	/**
+	 * Names of the used classes with their {@link DependencyKind} mask
+	 */
+	final Map<String, Integer> usesClassNames = new HashMap<>();
+
+	/**
+	 * Reverse of {@link #usesClasses}: all classes using this class. Built by
+	 * {@link ProjectModel#resolveDependencies()}.
+	 */
+	final Set<ClassModel> usedByClasses = new HashSet<>();
 
 	public String getQualifiedName() {
 		return qualifiedName;
@@ -35,16 +74,161 @@ public class ClassModel implements ModelNode {
 		return Collections.unmodifiableSet(usesClasses);
 	}
 
+	/**
+	 * Add a used class with a dependency of unknown kind
+	 */
 	public void addUsesClass(ClassModel clazz) {
-		usesClasses.add(clazz);
+		addUsesClass(clazz, DependencyKind.ALL);
+	}
+
+	/**
+	 * Add a used class. The kinds are combined with the kinds already
+	 * recorded for the class.
+	 */
+	public void addUsesClass(ClassModel clazz, int kinds) {
+		usesClassKinds.put(clazz, getDependencyKinds(clazz) | kinds);
+	}
+
+	/**
+	 * Return the {@link DependencyKind} mask of the dependency of this class
+	 * on the given class, 0 if the class is not used.
+	 */
+	public int getDependencyKinds(ClassModel used) {
+		Integer kinds = usesClassKinds.get(used);
+		return kinds == null ? 0 : kinds;
+	}
+
+	/**
+	 * All classes directly using this class. Available after the dependencies
+	 * of the project have been resolved.
+	 */
+	public Set<ClassModel> getUsedByClasses() {
+		return Collections.unmodifiableSet(usedByClasses);
 	}
 
 	public Set<String> getUsesClassNames() {
-		return Collections.unmodifiableSet(usesClassNames);
+		return Collections.unmodifiableSet(usesClassNames.keySet());
 	}
 
+	/**
+	 * The names of the used classes with the {@link DependencyKind} mask of
+	 * each dependency
+	 */
+	public Map<String, Integer> getUsesClassNameKinds() {
+		return Collections.unmodifiableMap(usesClassNames);
+	}
+
+	/**
+	 * Add the name of a used class with a dependency of unknown kind
+	 */
 	public void addUsesClassName(String name) {
-		usesClassNames.add(name);
+		addUsesClassName(name, DependencyKind.ALL);
+	}
+
+	/**
+	 * Add the name of a used class. The kinds are combined with the kinds
+	 * already recorded for the name.
+	 */
+	public void addUsesClassName(String name, int kinds) {
+		Integer existing = usesClassNames.get(name);
+		usesClassNames.put(name, existing == null ? kinds : existing | kinds);
+	}
+
+	/**
+	 * Size of the class file in bytes. After the dependencies of the project
+	 * have been resolved, the sizes of all nested classes are included.
+	 */
+	public long getClassFileSize() {
+		long result = classFileSize;
+		for (ClassModel nested : nestedClasses) {
+			result += nested.classFileSize;
+		}
+		return result;
+	}
+
+	/**
+	 * Size of the class file of this class in bytes, not including the
+	 * nested classes.
+	 */
+	public long getOwnClassFileSize() {
+		return classFileSize;
+	}
+
+	public void setClassFileSize(long classFileSize) {
+		this.classFileSize = classFileSize;
+	}
+
+	/**
+	 * @see #isLinked()
+	 */
+	private boolean linked;
+
+	/**
+	 * True if the class has been read from the summary of another artifact
+	 * (see {@link org.jabsaw.impl.SummaryLinker}) instead of being part of the
+	 * project itself
+	 */
+	public boolean isLinked() {
+		return linked;
+	}
+
+	public void setLinked(boolean linked) {
+		this.linked = linked;
+	}
+
+	/**
+	 * @see #getOwnAbiFingerprint()
+	 */
+	private long abiFingerprint;
+
+	/**
+	 * Fingerprint of the ABI of this class (see {@link AbiFingerprint}).
+	 * After the dependencies of the project have been resolved, the
+	 * fingerprints of the nested classes which are part of the ABI are
+	 * included.
+	 */
+	public long getAbiFingerprint() {
+		long[] fingerprints = new long[nestedClasses.size() + 1];
+		int count = 0;
+		fingerprints[count++] = abiFingerprint;
+		for (ClassModel nested : nestedClasses) {
+			if (nested.abiFingerprint != 0) {
+				fingerprints[count++] = nested.abiFingerprint;
+			}
+		}
+		if (count == 1) {
+			return abiFingerprint;
+		}
+		return AbiFingerprint.combine(Arrays.copyOf(fingerprints, count));
+	}
+
+	/**
+	 * Fingerprint of the ABI of this class, not including the nested classes.
+	 * 0 for anonymous, local and private member classes, which are not part
+	 * of the ABI.
+	 */
+	public long getOwnAbiFingerprint() {
+		return abiFingerprint;
+	}
+
+	public void setAbiFingerprint(long abiFingerprint) {
+		this.abiFingerprint = abiFingerprint;
+	}
+
+	/**
+	 * All classes nested (transitively) in this class. Filled when the nested
+	 * classes are merged into their toplevel class while resolving the
+	 * dependencies of the project.
+	 */
+	public Set<ClassModel> getNestedClasses() {
+		return Collections.unmodifiableSet(nestedClasses);
+	}
+
+	/**
+	 * Name of the class file of this class, relative to the class path root.
+	 */
+	public String getClassFileName() {
+		return qualifiedName.replace('.', '/') + ".class";
 	}
 
 	public ModuleModel getModule() {
@@ -77,12 +261,99 @@ public class ClassModel implements ModelNode {
 
 	public String outerClassName;
 
+	/**
+	 * Qualified name of the super class, null for java.lang.Object
+	 */
+	public String superClassName;
+
+	/**
+	 * Qualified names of the directly implemented interfaces
+	 */
+	public Set<String> interfaceNames = new HashSet<>();
+
+	/**
+	 * Access flags of the class, see {@link org.objectweb.asm.Opcodes}
+	 */
+	int access;
+
+	public int getAccess() {
+		return access;
+	}
+
+	public void setAccess(int access) {
+		this.access = access;
+	}
+
+	/**
+	 * @see #getAnnotations()
+	 */
+	final List<AnnotatedElement> annotations = new ArrayList<>(0);
+
+	/**
+	 * The annotations of this class, its fields, methods and method
+	 * parameters. Annotations of nested classes are kept on the nested
+	 * classes.
+	 */
+	public List<AnnotatedElement> getAnnotations() {
+		return Collections.unmodifiableList(annotations);
+	}
+
+	public void addAnnotation(AnnotatedElement annotation) {
+		annotations.add(annotation);
+	}
+
+	private static final int[] NO_MEMBER_REFERENCES = new int[0];
+
+	private int[] memberReferenceIds = NO_MEMBER_REFERENCES;
+
+	/**
+	 * Ids of the fields and methods referenced by the bytecode of this class,
+	 * sorted ascending. The ids refer to the {@link MemberTable} of the
+	 * project. Empty unless the class has been parsed in member-level mode.
+	 * References of nested classes are kept on the nested classes. The
+	 * returned array must not be modified.
+	 */
+	public int[] getMemberReferenceIds() {
+		return memberReferenceIds;
+	}
+
+	/**
+	 * Set the referenced members. The first length ids of the array are used,
+	 * they are sorted and duplicates are removed. The array is modified.
+	 */
+	public void setMemberReferenceIds(int[] ids, int length) {
+		memberReferenceIds = length == 0 ? NO_MEMBER_REFERENCES : MemberTable
+				.sortedDistinct(ids, length);
+	}
+
+	/**
+	 * The fields and methods referenced by the bytecode of this class. See
+	 * {@link #getMemberReferenceIds()}
+	 */
+	public List<MemberReference> getMemberReferences() {
+		MemberTable table = projectModel.getMemberTable();
+		List<MemberReference> result = new ArrayList<>(
+				memberReferenceIds.length);
+		for (int id : memberReferenceIds) {
+			result.add(table.get(id));
+		}
+		return result;
+	}
+
+	public boolean isInterface() {
+		return (access & Opcodes.ACC_INTERFACE) != 0;
+	}
+
+	public boolean isAbstract() {
+		return (access & Opcodes.ACC_ABSTRACT) != 0;
+	}
+
 	public void resolveUsedClasses() {
 		// resolve usage dependencies
-		for (String usesClassName : usesClassNames) {
-			ClassModel classModel = projectModel.getClassModel(usesClassName);
+		for (Map.Entry<String, Integer> entry : usesClassNames.entrySet()) {
+			ClassModel classModel = projectModel.getClassModel(entry.getKey());
 			if (classModel != null) {
-				addUsesClass(classModel.getToplevelClass());
+				addUsesClass(classModel.getToplevelClass(), entry.getValue());
 			}
 		}
 	}
@@ -106,11 +377,22 @@ public class ClassModel implements ModelNode {
 	}
 
 	public void checkAccessibilityOfUsedClasses(List<String> errors) {
+		checkAccessibilityOfUsedClasses(errors, DependencyKind.ALL);
+	}
+
+	/**
+	 * Check the accessibility of the used classes, considering only
+	 * dependencies of the given {@link DependencyKind}s
+	 */
+	public void checkAccessibilityOfUsedClasses(List<String> errors, int kinds) {
 		if (module == null) {
 			return;
 		}
 
 		for (ClassModel clazz : usesClasses) {
+			if ((getDependencyKinds(clazz) & kinds) == 0) {
+				continue;
+			}
 			if (!module.isAccessible(clazz)) {
 				errors.add("Class " + this + " references class " + clazz
 						+ ", which is not accessible for classes in module "
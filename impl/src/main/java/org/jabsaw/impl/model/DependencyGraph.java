@@ -0,0 +1,199 @@
+package org.jabsaw.impl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Int indexed view of the class and module dependencies of a resolved
+ * {@link ProjectModel}. Classes and modules are numbered in the order of
+ * their qualified names. Obtained by {@link ProjectModel#getDependencyGraph()}
+ */
+public class DependencyGraph {
+
+	private final ClassModel[] classes;
+	private final ModuleModel[] modules;
+
+	/**
+	 * Usage of classes by classes. Usages of a class by itself are omitted.
+	 * The edges carry the {@link DependencyKind}s of the usages.
+	 */
+	private final IntGraph classGraph;
+
+	/**
+	 * Direct module dependencies, caused by imports, exports or class usages
+	 */
+	private final IntGraph moduleGraph;
+
+	private int[] classOrder;
+
+	DependencyGraph(ProjectModel project) {
+		classes = project.getClasses().values().toArray(new ClassModel[] {});
+		Arrays.sort(classes, new Comparator<ClassModel>() {
+			@Override
+			public int compare(ClassModel o1, ClassModel o2) {
+				return o1.getQualifiedName().compareTo(o2.getQualifiedName());
+			}
+		});
+		for (int i = 0; i < classes.length; i++) {
+			classes[i].id = i;
+		}
+
+		modules = project.getModules().values().toArray(new ModuleModel[] {});
+		Arrays.sort(modules, new Comparator<ModuleModel>() {
+			@Override
+			public int compare(ModuleModel o1, ModuleModel o2) {
+				return o1.getQualifiedNameOfRepresentingClass().compareTo(
+						o2.getQualifiedNameOfRepresentingClass());
+			}
+		});
+		for (int i = 0; i < modules.length; i++) {
+			modules[i].id = i;
+		}
+
+		// class edges
+		EdgeList edges = new EdgeList();
+		for (ClassModel clazz : classes) {
+			for (ClassModel used : clazz.usesClasses) {
+				if (used != clazz) {
+					edges.add(clazz.id, used.id, clazz.getDependencyKinds(used));
+				}
+			}
+		}
+		classGraph = edges.toGraph(classes.length, true);
+
+		// module edges
+		edges = new EdgeList();
+		for (ModuleModel module : modules) {
+			Set<ModuleModel> targets = module.getReferencedModules();
+			targets.addAll(module.classEdges.keySet());
+			for (ModuleModel target : targets) {
+				edges.add(module.id, target.id, DependencyKind.ALL);
+			}
+		}
+		moduleGraph = edges.toGraph(modules.length, false);
+	}
+
+	private static class EdgeList {
+		int[] sources = new int[16];
+		int[] targets = new int[16];
+		int[] kinds = new int[16];
+		int size;
+
+		void add(int source, int target, int kind) {
+			if (size == sources.length) {
+				sources = Arrays.copyOf(sources, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+				kinds = Arrays.copyOf(kinds, size * 2);
+			}
+			sources[size] = source;
+			targets[size] = target;
+			kinds[size] = kind;
+			size++;
+		}
+
+		IntGraph toGraph(int nodeCount, boolean withKinds) {
+			return new IntGraph(nodeCount, sources, targets,
+					withKinds ? kinds : null, size);
+		}
+	}
+
+	public IntGraph getClassGraph() {
+		return classGraph;
+	}
+
+	/**
+	 * Return the class graph restricted to usages of the given
+	 * {@link DependencyKind}s
+	 */
+	public IntGraph getClassGraph(int kinds) {
+		return kinds == DependencyKind.ALL ? classGraph : classGraph
+				.filter(kinds);
+	}
+
+	public IntGraph getModuleGraph() {
+		return moduleGraph;
+	}
+
+	/**
+	 * Return the ids of all classes, ordered such that used classes come
+	 * before the classes using them, unless they are part of a dependency
+	 * cycle. The order is calculated on the first call.
+	 */
+	public synchronized int[] getClassOrder() {
+		if (classOrder == null) {
+			classOrder = classGraph.getSuccessorsFirstOrder();
+		}
+		return classOrder.clone();
+	}
+
+	/**
+	 * Return the dependency level of each class, see
+	 * {@link IntGraph#getLevels()}
+	 */
+	public int[] getClassLevels() {
+		return classGraph.getLevels();
+	}
+
+	public ClassModel getClass(int id) {
+		return classes[id];
+	}
+
+	public ModuleModel getModule(int id) {
+		return modules[id];
+	}
+
+	public int getId(ClassModel clazz) {
+		return checkId(clazz.id, classes, clazz);
+	}
+
+	public int getId(ModuleModel module) {
+		return checkId(module.id, modules, module);
+	}
+
+	private int checkId(int id, Object[] nodes, Object node) {
+		if (id < 0 || id >= nodes.length || nodes[id] != node) {
+			throw new IllegalArgumentException(node
+					+ " is not part of the dependency graph");
+		}
+		return id;
+	}
+
+	/**
+	 * Return a shortest chain of class usages leading from one class to
+	 * another, including both classes. If the target class is not reachable,
+	 * the empty list is returned.
+	 */
+	public List<ClassModel> findClassPath(ClassModel from, ClassModel to) {
+		int[] path = classGraph.shortestPath(getId(from), getId(to));
+		if (path == null) {
+			return Collections.emptyList();
+		}
+		List<ClassModel> result = new ArrayList<>();
+		for (int id : path) {
+			result.add(classes[id]);
+		}
+		return result;
+	}
+
+	/**
+	 * Return a shortest chain of direct module dependencies leading from one
+	 * module to another. Each step lists the imports, exports and class usages
+	 * causing it. If the modules are equal or the target module is not
+	 * reachable, the empty list is returned.
+	 */
+	public List<ModuleEdge> findModulePath(ModuleModel from, ModuleModel to) {
+		int[] path = moduleGraph.shortestPath(getId(from), getId(to));
+		if (path == null) {
+			return Collections.emptyList();
+		}
+		List<ModuleEdge> result = new ArrayList<>();
+		for (int i = 0; i + 1 < path.length; i++) {
+			result.add(new ModuleEdge(modules[path[i]], modules[path[i + 1]]));
+		}
+		return result;
+	}
+}
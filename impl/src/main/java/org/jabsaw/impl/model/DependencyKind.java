@@ -0,0 +1,112 @@
+package org.jabsaw.impl.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bit flags describing how a class uses another class. A dependency can have
+ * multiple kinds, the flags are combined into an int mask. The masks are
+ * recorded while parsing (see {@link ClassModel#getUsesClassNameKinds()}) and
+ * kept next to the target ids of the class graph (see
+ * {@link IntGraph#getSuccessorKinds(int)}).
+ */
+public final class DependencyKind {
+
+	/**
+	 * Super class or implemented interface
+	 */
+	public static final int INHERITANCE = 1;
+
+	/**
+	 * Type of a field, including its generic signature
+	 */
+	public static final int FIELD_TYPE = 2;
+
+	/**
+	 * Parameter, return or exception type of a method, or part of a generic
+	 * signature of the class or a method
+	 */
+	public static final int SIGNATURE = 4;
+
+	/**
+	 * Used by the code of a method: instructions, local variables and
+	 * exception handlers
+	 */
+	public static final int METHOD_BODY = 8;
+
+	/**
+	 * Annotation type or a class referenced from annotation values
+	 */
+	public static final int ANNOTATION = 16;
+
+	/**
+	 * All kinds. Used for dependencies of unknown kind
+	 */
+	public static final int ALL = INHERITANCE | FIELD_TYPE | SIGNATURE
+			| METHOD_BODY | ANNOTATION;
+
+	/**
+	 * The kinds visible in the API of a class: all kinds except
+	 * {@link #METHOD_BODY}
+	 */
+	public static final int API = ALL & ~METHOD_BODY;
+
+	private static final String[] NAMES = { "inheritance", "fieldType",
+			"signature", "methodBody", "annotation" };
+
+	private DependencyKind() {
+	}
+
+	/**
+	 * Parse a comma separated list of kind names, as returned by
+	 * {@link #toString(int)}. The names "all" and "api" are accepted as well.
+	 * At least one kind has to be given, since checking no kind at all would
+	 * silently disable the checks.
+	 */
+	public static int parse(String kinds) {
+		int result = 0;
+		for (String name : kinds.split(",")) {
+			name = name.trim();
+			if (name.isEmpty()) {
+				continue;
+			}
+			if ("all".equals(name)) {
+				result |= ALL;
+			} else if ("api".equals(name)) {
+				result |= API;
+			} else {
+				int idx = 0;
+				while (idx < NAMES.length && !NAMES[idx].equals(name)) {
+					idx++;
+				}
+				if (idx == NAMES.length) {
+					throw new IllegalArgumentException("Unknown dependency kind "
+							+ name);
+				}
+				result |= 1 << idx;
+			}
+		}
+		if (result == 0) {
+			throw new IllegalArgumentException("No dependency kind given in \""
+					+ kinds + "\"");
+		}
+		return result;
+	}
+
+	public static String toString(int kinds) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < NAMES.length; i++) {
+			if ((kinds & (1 << i)) != 0) {
+				names.add(NAMES[i]);
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (String name : names) {
+			if (sb.length() > 0) {
+				sb.append(",");
+			}
+			sb.append(name);
+		}
+		return sb.toString();
+	}
+}
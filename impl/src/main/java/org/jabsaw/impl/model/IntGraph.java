@@ -0,0 +1,447 @@
+package org.jabsaw.impl.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact directed graph over the nodes {@code 0..nodeCount-1}. The
+ * successors and predecessors of all nodes are stored in two flat arrays,
+ * indexed by offset arrays, which keeps traversals cheap even for very large
+ * graphs. Optionally, each edge carries a {@link DependencyKind} mask, stored
+ * as a byte next to the adjacent node.
+ */
+public class IntGraph {
+
+	private final int nodeCount;
+
+	private final int[] offsets;
+	private final int[] successors;
+
+	private final int[] reverseOffsets;
+	private final int[] predecessors;
+
+	/**
+	 * {@link DependencyKind} masks of the edges, parallel to
+	 * {@link #successors} and {@link #predecessors}. Null if the graph has
+	 * been created without kinds.
+	 */
+	private final byte[] successorKinds;
+	private final byte[] predecessorKinds;
+
+	/**
+	 * Create a graph from the given edge arrays. Edge i leads from
+	 * {@code sources[i]} to {@code targets[i]}. Only the first edgeCount
+	 * entries of the arrays are used.
+	 */
+	public IntGraph(int nodeCount, int[] sources, int[] targets, int edgeCount) {
+		this(nodeCount, sources, targets, null, edgeCount);
+	}
+
+	/**
+	 * Create a graph from the given edge arrays, edge i having the
+	 * {@link DependencyKind} mask {@code kinds[i]}. If kinds is null, all
+	 * edges are of every kind.
+	 */
+	public IntGraph(int nodeCount, int[] sources, int[] targets, int[] kinds,
+			int edgeCount) {
+		this.nodeCount = nodeCount;
+		offsets = new int[nodeCount + 1];
+		successors = new int[edgeCount];
+		reverseOffsets = new int[nodeCount + 1];
+		predecessors = new int[edgeCount];
+		successorKinds = kinds == null ? null : new byte[edgeCount];
+		predecessorKinds = kinds == null ? null : new byte[edgeCount];
+		fill(sources, targets, kinds, edgeCount, offsets, successors,
+				successorKinds);
+		fill(targets, sources, kinds, edgeCount, reverseOffsets,
+				predecessors, predecessorKinds);
+	}
+
+	private static void fill(int[] from, int[] to, int[] kinds,
+			int edgeCount, int[] offsets, int[] adjacent, byte[] adjacentKinds) {
+		for (int i = 0; i < edgeCount; i++) {
+			offsets[from[i] + 1]++;
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+		int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i = 0; i < edgeCount; i++) {
+			int idx = next[from[i]]++;
+			adjacent[idx] = to[i];
+			if (adjacentKinds != null) {
+				adjacentKinds[idx] = (byte) kinds[i];
+			}
+		}
+	}
+
+	private static boolean hasKind(byte[] kinds, int edge, int mask) {
+		return kinds == null || (kinds[edge] & mask) != 0;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return successors.length;
+	}
+
+	public int[] getSuccessors(int node) {
+		return Arrays.copyOfRange(successors, offsets[node], offsets[node + 1]);
+	}
+
+	public int[] getPredecessors(int node) {
+		return Arrays.copyOfRange(predecessors, reverseOffsets[node],
+				reverseOffsets[node + 1]);
+	}
+
+	/**
+	 * Return the {@link DependencyKind} masks of the edges leading to the
+	 * successors of the given node, in the order of
+	 * {@link #getSuccessors(int)}
+	 */
+	public int[] getSuccessorKinds(int node) {
+		int[] result = new int[offsets[node + 1] - offsets[node]];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = successorKinds == null ? DependencyKind.ALL
+					: successorKinds[offsets[node] + i];
+		}
+		return result;
+	}
+
+	/**
+	 * Return the {@link DependencyKind} mask of the edge from one node to
+	 * another, 0 if there is no such edge
+	 */
+	public int getEdgeKinds(int from, int to) {
+		for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+			if (successors[e] == to) {
+				return successorKinds == null ? DependencyKind.ALL
+						: successorKinds[e];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the graph consisting of the edges having at least one of the
+	 * given {@link DependencyKind}s
+	 */
+	public IntGraph filter(int kinds) {
+		int[] sources = new int[successors.length];
+		int[] targets = new int[successors.length];
+		int[] edgeKinds = new int[successors.length];
+		int count = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				if (hasKind(successorKinds, e, kinds)) {
+					sources[count] = node;
+					targets[count] = successors[e];
+					edgeKinds[count] = successorKinds == null ? DependencyKind.ALL
+							: successorKinds[e];
+					count++;
+				}
+			}
+		}
+		return new IntGraph(nodeCount, sources, targets,
+				successorKinds == null ? null : edgeKinds, count);
+	}
+
+	/**
+	 * Return all nodes reachable from the given start nodes, including the
+	 * start nodes themselves. If reverse is true, the edges are followed
+	 * backwards, yielding all nodes the start nodes are reachable from.
+	 */
+	public BitSet reachable(BitSet start, boolean reverse) {
+		return reachable(start, reverse, DependencyKind.ALL);
+	}
+
+	/**
+	 * Like {@link #reachable(BitSet, boolean)}, following only edges having
+	 * at least one of the given {@link DependencyKind}s
+	 */
+	public BitSet reachable(BitSet start, boolean reverse, int kinds) {
+		int[] adjacencyOffsets = reverse ? reverseOffsets : offsets;
+		int[] adjacent = reverse ? predecessors : successors;
+		byte[] adjacentKinds = reverse ? predecessorKinds : successorKinds;
+
+		BitSet visited = (BitSet) start.clone();
+		int[] queue = new int[Math.max(visited.cardinality(), 16)];
+		int tail = 0;
+		for (int node = visited.nextSetBit(0); node >= 0; node = visited
+				.nextSetBit(node + 1)) {
+			queue[tail++] = node;
+		}
+
+		for (int head = 0; head < tail; head++) {
+			int node = queue[head];
+			for (int e = adjacencyOffsets[node]; e < adjacencyOffsets[node + 1]; e++) {
+				if (!hasKind(adjacentKinds, e, kinds)) {
+					continue;
+				}
+				int next = adjacent[e];
+				if (!visited.get(next)) {
+					visited.set(next);
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, Math.min(nodeCount,
+								tail * 2));
+					}
+					queue[tail++] = next;
+				}
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * Return the strongly connected component of each node. Components are
+	 * numbered in reverse topological order of the condensation: if an edge
+	 * leads from component a to a different component b, then b < a.
+	 * Tarjan's algorithm is used, with an explicit stack instead of
+	 * recursion.
+	 */
+	public int[] getComponents() {
+		int[] index = new int[nodeCount];
+		int[] lowLink = new int[nodeCount];
+		int[] component = new int[nodeCount];
+		Arrays.fill(index, -1);
+
+		int[] stack = new int[nodeCount];
+		int stackSize = 0;
+		boolean[] onStack = new boolean[nodeCount];
+
+		// call stack: node and position in its successor list
+		int[] callNode = new int[nodeCount];
+		int[] callEdge = new int[nodeCount];
+
+		int nextIndex = 0;
+		int nextComponent = 0;
+		for (int root = 0; root < nodeCount; root++) {
+			if (index[root] != -1) {
+				continue;
+			}
+			int depth = 0;
+			callNode[0] = root;
+			callEdge[0] = offsets[root];
+			index[root] = lowLink[root] = nextIndex++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+
+			while (depth >= 0) {
+				int node = callNode[depth];
+				if (callEdge[depth] < offsets[node + 1]) {
+					int next = successors[callEdge[depth]++];
+					if (index[next] == -1) {
+						// descend
+						index[next] = lowLink[next] = nextIndex++;
+						stack[stackSize++] = next;
+						onStack[next] = true;
+						depth++;
+						callNode[depth] = next;
+						callEdge[depth] = offsets[next];
+					} else if (onStack[next]) {
+						lowLink[node] = Math.min(lowLink[node], index[next]);
+					}
+				} else {
+					// all successors visited
+					if (lowLink[node] == index[node]) {
+						int member;
+						do {
+							member = stack[--stackSize];
+							onStack[member] = false;
+							component[member] = nextComponent;
+						} while (member != node);
+						nextComponent++;
+					}
+					depth--;
+					if (depth >= 0) {
+						int parent = callNode[depth];
+						lowLink[parent] = Math.min(lowLink[parent],
+								lowLink[node]);
+					}
+				}
+			}
+		}
+		return component;
+	}
+
+	/**
+	 * Return all nodes, ordered such that the successors of a node come before
+	 * the node itself, unless they are part of the same strongly connected
+	 * component. Within a component, nodes are ordered by their number.
+	 */
+	public int[] getSuccessorsFirstOrder() {
+		return getSuccessorsFirstOrder(getComponents());
+	}
+
+	private int[] getSuccessorsFirstOrder(int[] component) {
+		// counting sort by component
+		int[] start = new int[nodeCount + 1];
+		for (int node = 0; node < nodeCount; node++) {
+			start[component[node] + 1]++;
+		}
+		for (int i = 1; i < start.length; i++) {
+			start[i] += start[i - 1];
+		}
+		int[] order = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			order[start[component[node]]++] = node;
+		}
+		return order;
+	}
+
+	/**
+	 * Return the dependency level of each node. Nodes without successors
+	 * outside of their strongly connected component have level 0, all other
+	 * nodes have a level one higher than the maximum level of these
+	 * successors. Nodes of the same level do not depend on each other, except
+	 * within cycles.
+	 */
+	public int[] getLevels() {
+		int[] component = getComponents();
+		int[] order = getSuccessorsFirstOrder(component);
+		int[] componentLevel = new int[nodeCount];
+		for (int node : order) {
+			for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+				int next = successors[e];
+				if (component[next] != component[node]) {
+					componentLevel[component[node]] = Math.max(
+							componentLevel[component[node]],
+							componentLevel[component[next]] + 1);
+				}
+			}
+		}
+		int[] level = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			level[node] = componentLevel[component[node]];
+		}
+		return level;
+	}
+
+	/**
+	 * Return the nodes of a shortest path leading from the from node to the
+	 * to node, including both end points, or null if there is no such path.
+	 * A bidirectional breadth first search is used, always expanding the
+	 * smaller of the two frontiers.
+	 */
+	public int[] shortestPath(int from, int to) {
+		if (from == to) {
+			return new int[] { from };
+		}
+
+		// parent pointers towards the start (forward) and towards the
+		// target (backward). -1 marks unvisited nodes
+		int[] forwardParent = new int[nodeCount];
+		int[] backwardParent = new int[nodeCount];
+		int[] forwardDistance = new int[nodeCount];
+		int[] backwardDistance = new int[nodeCount];
+		Arrays.fill(forwardParent, -1);
+		Arrays.fill(backwardParent, -1);
+		forwardParent[from] = from;
+		backwardParent[to] = to;
+
+		int[] forwardFrontier = new int[] { from };
+		int forwardSize = 1;
+		int[] backwardFrontier = new int[] { to };
+		int backwardSize = 1;
+
+		while (forwardSize > 0 && backwardSize > 0) {
+			int bestLength = Integer.MAX_VALUE;
+			int meetFrom = -1;
+			int meetTo = -1;
+			boolean forward = forwardSize <= backwardSize;
+
+			int[] frontier = forward ? forwardFrontier : backwardFrontier;
+			int size = forward ? forwardSize : backwardSize;
+			int[] parent = forward ? forwardParent : backwardParent;
+			int[] otherParent = forward ? backwardParent : forwardParent;
+			int[] distance = forward ? forwardDistance : backwardDistance;
+			int[] otherDistance = forward ? backwardDistance
+					: forwardDistance;
+			int[] adjacencyOffsets = forward ? offsets : reverseOffsets;
+			int[] adjacent = forward ? successors : predecessors;
+
+			int[] nextFrontier = new int[Math.max(size, 16)];
+			int nextSize = 0;
+			for (int i = 0; i < size; i++) {
+				int node = frontier[i];
+				for (int e = adjacencyOffsets[node]; e < adjacencyOffsets[node + 1]; e++) {
+					int next = adjacent[e];
+					if (otherParent[next] != -1) {
+						int length = distance[node] + 1 + otherDistance[next];
+						if (length < bestLength) {
+							bestLength = length;
+							meetFrom = node;
+							meetTo = next;
+						}
+					}
+					if (parent[next] == -1) {
+						parent[next] = node;
+						distance[next] = distance[node] + 1;
+						if (nextSize == nextFrontier.length) {
+							nextFrontier = Arrays.copyOf(nextFrontier,
+									nextSize * 2);
+						}
+						nextFrontier[nextSize++] = next;
+					}
+				}
+			}
+
+			if (meetFrom != -1) {
+				if (forward) {
+					return buildPath(forwardParent, backwardParent, meetFrom,
+							meetTo, bestLength);
+				} else {
+					return buildPath(forwardParent, backwardParent, meetTo,
+							meetFrom, bestLength);
+				}
+			}
+
+			if (forward) {
+				forwardFrontier = nextFrontier;
+				forwardSize = nextSize;
+			} else {
+				backwardFrontier = nextFrontier;
+				backwardSize = nextSize;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Build the path consisting of the forward path to the node a, the edge
+	 * from a to b and the backward path from b.
+	 */
+	private int[] buildPath(int[] forwardParent, int[] backwardParent, int a,
+			int b, int length) {
+		int[] path = new int[length + 1];
+
+		// walk the forward part from a back to the start
+		int idx = 0;
+		for (int node = a;; node = forwardParent[node]) {
+			path[idx++] = node;
+			if (forwardParent[node] == node) {
+				break;
+			}
+		}
+		reverse(path, idx);
+
+		// walk the backward part from b to the target
+		for (int node = b;; node = backwardParent[node]) {
+			path[idx++] = node;
+			if (backwardParent[node] == node) {
+				break;
+			}
+		}
+		return path;
+	}
+
+	private static void reverse(int[] array, int length) {
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int tmp = array[i];
+			array[i] = array[j];
+			array[j] = tmp;
+		}
+	}
+}
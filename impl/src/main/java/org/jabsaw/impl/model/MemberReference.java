@@ -0,0 +1,53 @@
+package org.jabsaw.impl.model;
+
+/**
+ * A field or method referenced from the bytecode of a class, identified by
+ * the owner named in the instruction, the member name and the descriptor.
+ * Instances are interned by the {@link MemberTable} of the project.
+ */
+public class MemberReference {
+
+	private final int id;
+	private final String ownerName;
+	private final String name;
+	private final String descriptor;
+
+	MemberReference(int id, String ownerName, String name, String descriptor) {
+		this.id = id;
+		this.ownerName = ownerName;
+		this.name = name;
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * Id of the reference within the {@link MemberTable}
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Qualified name of the class named as owner in the instruction. This can
+	 * be a subclass of the class declaring the member.
+	 */
+	public String getOwnerName() {
+		return ownerName;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescriptor() {
+		return descriptor;
+	}
+
+	public boolean isMethod() {
+		return descriptor.startsWith("(");
+	}
+
+	@Override
+	public String toString() {
+		return ownerName + "." + name + (isMethod() ? descriptor : "");
+	}
+}
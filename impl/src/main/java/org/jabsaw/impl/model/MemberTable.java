@@ -0,0 +1,83 @@
+package org.jabsaw.impl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the member references recorded while parsing in member-level mode.
+ * Each distinct owner/name/descriptor triple is stored once per project and
+ * identified by an int id, the classes only keep sorted arrays of these ids
+ * (see {@link ClassModel#getMemberReferenceIds()}). The strings of the
+ * triples are interned as well.
+ */
+public class MemberTable {
+
+	private final Map<String, String> strings = new HashMap<>();
+	private final Map<String, Map<String, Map<String, MemberReference>>> ids = new HashMap<>();
+	private final List<MemberReference> references = new ArrayList<>();
+
+	MemberTable() {
+	}
+
+	/**
+	 * Return the id of the given member reference, allocating a new id if the
+	 * reference has not been seen before. Synchronized, since classes may be
+	 * parsed concurrently
+	 */
+	public synchronized int intern(String ownerName, String name,
+			String descriptor) {
+		Map<String, Map<String, MemberReference>> byName = ids.get(ownerName);
+		if (byName == null) {
+			byName = new HashMap<>();
+			ids.put(intern(ownerName), byName);
+		}
+		Map<String, MemberReference> byDescriptor = byName.get(name);
+		if (byDescriptor == null) {
+			byDescriptor = new HashMap<>(2);
+			byName.put(intern(name), byDescriptor);
+		}
+		MemberReference reference = byDescriptor.get(descriptor);
+		if (reference == null) {
+			reference = new MemberReference(references.size(),
+					intern(ownerName), intern(name), intern(descriptor));
+			byDescriptor.put(reference.getDescriptor(), reference);
+			references.add(reference);
+		}
+		return reference.getId();
+	}
+
+	private String intern(String s) {
+		String result = strings.get(s);
+		if (result == null) {
+			strings.put(s, s);
+			result = s;
+		}
+		return result;
+	}
+
+	public synchronized MemberReference get(int id) {
+		return references.get(id);
+	}
+
+	public synchronized int size() {
+		return references.size();
+	}
+
+	/**
+	 * Return the first length ids of the given array, sorted and without
+	 * duplicates. The given array is modified.
+	 */
+	static int[] sortedDistinct(int[] ids, int length) {
+		Arrays.sort(ids, 0, length);
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			if (count == 0 || ids[count - 1] != ids[i]) {
+				ids[count++] = ids[i];
+			}
+		}
+		return Arrays.copyOf(ids, count);
+	}
+}
@@ -0,0 +1,289 @@
+package org.jabsaw.impl.model;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Differences between two {@link ModelSnapshot}s. Since the names and edges
+ * of snapshots are sorted, the comparison runs in time linear in the size of
+ * the snapshots.
+ */
+public class ModelDiff {
+
+	/**
+	 * An edge between two classes or two modules, identified by their names
+	 */
+	public static class Edge {
+		private final String from;
+		private final String to;
+
+		Edge(String from, String to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		public String getFrom() {
+			return from;
+		}
+
+		public String getTo() {
+			return to;
+		}
+
+		@Override
+		public String toString() {
+			return from + " -> " + to;
+		}
+	}
+
+	/**
+	 * A class which changed its module. The module names are null for classes
+	 * in no module.
+	 */
+	public static class Move {
+		private final String className;
+		private final String oldModule;
+		private final String newModule;
+
+		Move(String className, String oldModule, String newModule) {
+			this.className = className;
+			this.oldModule = oldModule;
+			this.newModule = newModule;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public String getOldModule() {
+			return oldModule;
+		}
+
+		public String getNewModule() {
+			return newModule;
+		}
+
+		@Override
+		public String toString() {
+			return className + ": " + oldModule + " -> " + newModule;
+		}
+	}
+
+	final List<String> addedModules = new ArrayList<>();
+	final List<String> removedModules = new ArrayList<>();
+	final List<String> addedClasses = new ArrayList<>();
+	final List<String> removedClasses = new ArrayList<>();
+	final List<Move> movedClasses = new ArrayList<>();
+	final List<Edge> addedModuleEdges = new ArrayList<>();
+	final List<Edge> removedModuleEdges = new ArrayList<>();
+	final List<Edge> addedClassEdges = new ArrayList<>();
+	final List<Edge> removedClassEdges = new ArrayList<>();
+
+	/**
+	 * Compare a baseline snapshot with the current snapshot
+	 */
+	public static ModelDiff compare(ModelSnapshot baseline,
+			ModelSnapshot current) {
+		ModelDiff diff = new ModelDiff();
+
+		// map the module and class indexes of both snapshots to the indexes of
+		// the union of the names. The mappings are monotonic, thus remapped
+		// edge arrays stay sorted
+		int[] baselineModules = new int[baseline.moduleNames.length];
+		int[] currentModules = new int[current.moduleNames.length];
+		String[] modules = mergeNames(baseline.moduleNames,
+				current.moduleNames, baselineModules, currentModules,
+				diff.removedModules, diff.addedModules);
+
+		int[] baselineClasses = new int[baseline.classNames.length];
+		int[] currentClasses = new int[current.classNames.length];
+		String[] classes = mergeNames(baseline.classNames, current.classNames,
+				baselineClasses, currentClasses, diff.removedClasses,
+				diff.addedClasses);
+
+		// find moved classes
+		int i = 0;
+		int j = 0;
+		while (i < baselineClasses.length && j < currentClasses.length) {
+			if (baselineClasses[i] < currentClasses[j]) {
+				i++;
+			} else if (baselineClasses[i] > currentClasses[j]) {
+				j++;
+			} else {
+				String oldModule = moduleName(baseline, i);
+				String newModule = moduleName(current, j);
+				if (oldModule == null ? newModule != null : !oldModule
+						.equals(newModule)) {
+					diff.movedClasses.add(new Move(classes[baselineClasses[i]],
+							oldModule, newModule));
+				}
+				i++;
+				j++;
+			}
+		}
+
+		compareEdges(remap(baseline.moduleEdges, baselineModules),
+				remap(current.moduleEdges, currentModules), modules,
+				diff.removedModuleEdges, diff.addedModuleEdges);
+		compareEdges(remap(baseline.classEdges, baselineClasses),
+				remap(current.classEdges, currentClasses), classes,
+				diff.removedClassEdges, diff.addedClassEdges);
+		return diff;
+	}
+
+	private static String moduleName(ModelSnapshot snapshot, int classIndex) {
+		int module = snapshot.classModules[classIndex];
+		return module < 0 ? null : snapshot.moduleNames[module];
+	}
+
+	/**
+	 * Merge two sorted name arrays. The index of each name in the result is
+	 * stored in the respective mapping. Names only present in a or b are added
+	 * to onlyA or onlyB.
+	 */
+	private static String[] mergeNames(String[] a, String[] b, int[] mapA,
+			int[] mapB, List<String> onlyA, List<String> onlyB) {
+		String[] result = new String[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < a.length || j < b.length) {
+			int cmp;
+			if (i == a.length) {
+				cmp = 1;
+			} else if (j == b.length) {
+				cmp = -1;
+			} else {
+				cmp = a[i].compareTo(b[j]);
+			}
+
+			if (cmp < 0) {
+				onlyA.add(a[i]);
+				mapA[i] = k;
+				result[k++] = a[i++];
+			} else if (cmp > 0) {
+				onlyB.add(b[j]);
+				mapB[j] = k;
+				result[k++] = b[j++];
+			} else {
+				mapA[i++] = k;
+				mapB[j++] = k;
+				result[k++] = b[j - 1];
+			}
+		}
+		return result;
+	}
+
+	private static long[] remap(long[] edges, int[] mapping) {
+		long[] result = new long[edges.length];
+		for (int i = 0; i < edges.length; i++) {
+			result[i] = ModelSnapshot.edge(
+					mapping[ModelSnapshot.source(edges[i])],
+					mapping[ModelSnapshot.target(edges[i])]);
+		}
+		return result;
+	}
+
+	private static void compareEdges(long[] a, long[] b, String[] names,
+			List<Edge> onlyA, List<Edge> onlyB) {
+		int i = 0;
+		int j = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				onlyA.add(toEdge(a[i++], names));
+			} else if (i == a.length || a[i] > b[j]) {
+				onlyB.add(toEdge(b[j++], names));
+			} else {
+				i++;
+				j++;
+			}
+		}
+	}
+
+	private static Edge toEdge(long edge, String[] names) {
+		return new Edge(names[ModelSnapshot.source(edge)],
+				names[ModelSnapshot.target(edge)]);
+	}
+
+	/**
+	 * True if no differences have been found
+	 */
+	public boolean isEmpty() {
+		return addedModules.isEmpty() && removedModules.isEmpty()
+				&& addedClasses.isEmpty() && removedClasses.isEmpty()
+				&& movedClasses.isEmpty() && addedModuleEdges.isEmpty()
+				&& removedModuleEdges.isEmpty() && addedClassEdges.isEmpty()
+				&& removedClassEdges.isEmpty();
+	}
+
+	public List<String> getAddedModules() {
+		return Collections.unmodifiableList(addedModules);
+	}
+
+	public List<String> getRemovedModules() {
+		return Collections.unmodifiableList(removedModules);
+	}
+
+	public List<String> getAddedClasses() {
+		return Collections.unmodifiableList(addedClasses);
+	}
+
+	public List<String> getRemovedClasses() {
+		return Collections.unmodifiableList(removedClasses);
+	}
+
+	/**
+	 * Classes present in both snapshots, which changed their module
+	 */
+	public List<Move> getMovedClasses() {
+		return Collections.unmodifiableList(movedClasses);
+	}
+
+	/**
+	 * New direct module dependencies, caused by imports, exports or class
+	 * usages
+	 */
+	public List<Edge> getAddedModuleEdges() {
+		return Collections.unmodifiableList(addedModuleEdges);
+	}
+
+	public List<Edge> getRemovedModuleEdges() {
+		return Collections.unmodifiableList(removedModuleEdges);
+	}
+
+	public List<Edge> getAddedClassEdges() {
+		return Collections.unmodifiableList(addedClassEdges);
+	}
+
+	public List<Edge> getRemovedClassEdges() {
+		return Collections.unmodifiableList(removedClassEdges);
+	}
+
+	/**
+	 * Print a human readable report of the differences
+	 */
+	public void print(PrintWriter out) {
+		print(out, "Added modules", addedModules);
+		print(out, "Removed modules", removedModules);
+		print(out, "Added module dependencies", addedModuleEdges);
+		print(out, "Removed module dependencies", removedModuleEdges);
+		print(out, "Classes moved between modules", movedClasses);
+		print(out, "Added classes", addedClasses);
+		print(out, "Removed classes", removedClasses);
+		print(out, "Added class dependencies", addedClassEdges);
+		print(out, "Removed class dependencies", removedClassEdges);
+		out.flush();
+	}
+
+	private void print(PrintWriter out, String title, List<?> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		out.println(title + " (" + items.size() + "):");
+		for (Object item : items) {
+			out.println("  " + item);
+		}
+	}
+}
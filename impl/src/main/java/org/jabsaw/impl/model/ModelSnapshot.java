@@ -0,0 +1,221 @@
+package org.jabsaw.impl.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Immutable, compact snapshot of the dependency structure of a resolved
+ * {@link ProjectModel}. Classes and modules are identified by their index in
+ * the sorted name arrays, edges are stored as sorted arrays of
+ * {@code (source << 32 | target)} longs. The ABI fingerprints of the classes
+ * and modules are included (see {@link AbiFingerprint}). Snapshots can be
+ * saved to and loaded from files, for example to keep the model of a baseline
+ * build.
+ */
+public class ModelSnapshot {
+
+	private static final int MAGIC = 0x4a534e50; // "JSNP"
+	private static final int VERSION = 2;
+
+	final String[] classNames;
+	final String[] moduleNames;
+
+	/**
+	 * Index of the module of each class, -1 if the class is in no module
+	 */
+	final int[] classModules;
+
+	final long[] classEdges;
+	final long[] moduleEdges;
+
+	final long[] classFingerprints;
+	final long[] moduleFingerprints;
+
+	ModelSnapshot(String[] classNames, String[] moduleNames,
+			int[] classModules, long[] classEdges, long[] moduleEdges,
+			long[] classFingerprints, long[] moduleFingerprints) {
+		this.classNames = classNames;
+		this.moduleNames = moduleNames;
+		this.classModules = classModules;
+		this.classEdges = classEdges;
+		this.moduleEdges = moduleEdges;
+		this.classFingerprints = classFingerprints;
+		this.moduleFingerprints = moduleFingerprints;
+	}
+
+	/**
+	 * Create a snapshot of the given project, which has to be resolved.
+	 */
+	public static ModelSnapshot of(ProjectModel project) {
+		DependencyGraph graph = project.getDependencyGraph();
+		IntGraph classGraph = graph.getClassGraph();
+		IntGraph moduleGraph = graph.getModuleGraph();
+
+		String[] classNames = new String[classGraph.getNodeCount()];
+		int[] classModules = new int[classNames.length];
+		long[] classFingerprints = new long[classNames.length];
+		for (int i = 0; i < classNames.length; i++) {
+			ClassModel clazz = graph.getClass(i);
+			classNames[i] = clazz.getQualifiedName();
+			classFingerprints[i] = clazz.getAbiFingerprint();
+			classModules[i] = clazz.getModule() == null ? -1 : graph
+					.getId(clazz.getModule());
+		}
+
+		String[] moduleNames = new String[moduleGraph.getNodeCount()];
+		long[] moduleFingerprints = new long[moduleNames.length];
+		for (int i = 0; i < moduleNames.length; i++) {
+			moduleNames[i] = graph.getModule(i)
+					.getQualifiedNameOfRepresentingClass();
+			moduleFingerprints[i] = graph.getModule(i).getAbiFingerprint();
+		}
+
+		return new ModelSnapshot(classNames, moduleNames, classModules,
+				toEdgeArray(classGraph), toEdgeArray(moduleGraph),
+				classFingerprints, moduleFingerprints);
+	}
+
+	private static long[] toEdgeArray(IntGraph graph) {
+		long[] edges = new long[graph.getEdgeCount()];
+		int idx = 0;
+		for (int node = 0; node < graph.getNodeCount(); node++) {
+			for (int target : graph.getSuccessors(node)) {
+				edges[idx++] = edge(node, target);
+			}
+		}
+		Arrays.sort(edges);
+		return edges;
+	}
+
+	static long edge(int source, int target) {
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	static int source(long edge) {
+		return (int) (edge >>> 32);
+	}
+
+	static int target(long edge) {
+		return (int) edge;
+	}
+
+	public int getClassCount() {
+		return classNames.length;
+	}
+
+	public int getModuleCount() {
+		return moduleNames.length;
+	}
+
+	public int getClassEdgeCount() {
+		return classEdges.length;
+	}
+
+	public int getModuleEdgeCount() {
+		return moduleEdges.length;
+	}
+
+	public void write(Path file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(
+				file.toFile()))) {
+			write(out);
+		}
+	}
+
+	public void write(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeStrings(out, moduleNames);
+		writeStrings(out, classNames);
+		for (int module : classModules) {
+			out.writeInt(module);
+		}
+		writeEdges(out, classEdges);
+		writeEdges(out, moduleEdges);
+		for (long fingerprint : classFingerprints) {
+			out.writeLong(fingerprint);
+		}
+		for (long fingerprint : moduleFingerprints) {
+			out.writeLong(fingerprint);
+		}
+		out.flush();
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] strings)
+			throws IOException {
+		out.writeInt(strings.length);
+		for (String s : strings) {
+			out.writeUTF(s);
+		}
+	}
+
+	private static void writeEdges(DataOutputStream out, long[] edges)
+			throws IOException {
+		out.writeInt(edges.length);
+		for (long edge : edges) {
+			out.writeLong(edge);
+		}
+	}
+
+	public static ModelSnapshot read(Path file) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(
+				file.toFile()))) {
+			return read(in);
+		}
+	}
+
+	public static ModelSnapshot read(InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a model snapshot");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported model snapshot version "
+					+ version);
+		}
+		String[] moduleNames = readStrings(in);
+		String[] classNames = readStrings(in);
+		int[] classModules = new int[classNames.length];
+		for (int i = 0; i < classModules.length; i++) {
+			classModules[i] = in.readInt();
+		}
+		long[] classEdges = readEdges(in);
+		long[] moduleEdges = readEdges(in);
+		long[] classFingerprints = readLongs(in, classNames.length);
+		long[] moduleFingerprints = readLongs(in, moduleNames.length);
+		return new ModelSnapshot(classNames, moduleNames, classModules,
+				classEdges, moduleEdges, classFingerprints, moduleFingerprints);
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] result = new String[in.readInt()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = in.readUTF();
+		}
+		return result;
+	}
+
+	private static long[] readEdges(DataInputStream in) throws IOException {
+		return readLongs(in, in.readInt());
+	}
+
+	private static long[] readLongs(DataInputStream in, int count)
+			throws IOException {
+		long[] result = new long[count];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = in.readLong();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,66 @@
+package org.jabsaw.impl.model;
+
+import java.util.Set;
+
+/**
+ * A direct dependency of one module on another, together with the reasons
+ * causing it: an import, an export and/or classes of the source module using
+ * classes of the target module.
+ */
+public class ModuleEdge {
+	private final ModuleModel from;
+	private final ModuleModel to;
+
+	public ModuleEdge(ModuleModel from, ModuleModel to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	public ModuleModel getFrom() {
+		return from;
+	}
+
+	public ModuleModel getTo() {
+		return to;
+	}
+
+	/**
+	 * True if the source module imports the target module
+	 */
+	public boolean isImport() {
+		return from.importedModules.contains(to);
+	}
+
+	/**
+	 * True if the source module exports the target module
+	 */
+	public boolean isExport() {
+		return from.exportedModules.contains(to);
+	}
+
+	/**
+	 * The class usages leading from the source module to the target module.
+	 */
+	public Set<ClassEdge> getClassEdges() {
+		return from.getClassEdges(to);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(from);
+		if (isExport()) {
+			sb.append(" exports ");
+		} else if (isImport()) {
+			sb.append(" imports ");
+		} else {
+			sb.append(" uses ");
+		}
+		sb.append(to);
+		int classEdgeCount = getClassEdges().size();
+		if (classEdgeCount > 0) {
+			sb.append(" (").append(classEdgeCount).append(" class usages)");
+		}
+		return sb.toString();
+	}
+}
@@ -1,7 +1,9 @@
 package org.jabsaw.impl.model;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.jabsaw.impl.pattern.ClassPattern;
@@ -56,6 +58,29 @@ public class ModuleModel implements ModelNode {
 	 */
 	final Set<ModuleModel> allModuleDependencies = new HashSet<>();
 
+	/**
+	 * Modules directly importing or exporting this module. Reverse of
+	 * {@link #getReferencedModules()}
+	 */
+	final Set<ModuleModel> referencingModules = new HashSet<>();
+
+	/**
+	 * All modules depending upon this module. Includes transitive dependencies.
+	 * Reverse of {@link #allModuleDependencies}
+	 */
+	final Set<ModuleModel> allDependentModules = new HashSet<>();
+
+	/**
+	 * Usages of classes of other modules by classes of this module, keyed by
+	 * the module of the used class.
+	 */
+	final Map<ModuleModel, Set<ClassEdge>> classEdges = new HashMap<>();
+
+	/**
+	 * Index of this module in the {@link DependencyGraph}
+	 */
+	int id = -1;
+
 	/**
 	 * If true, the module will be hidden from outputs of the dependency graph,
 	 * for example when plotting the dependency graph.
@@ -97,6 +122,41 @@ public class ModuleModel implements ModelNode {
 		return Collections.unmodifiableSet(classes);
 	}
 
+	/**
+	 * @see #isLinked()
+	 */
+	private boolean linked;
+
+	/**
+	 * True if the module has been read from the summary of another artifact
+	 * (see {@link org.jabsaw.impl.SummaryLinker})
+	 */
+	public boolean isLinked() {
+		return linked;
+	}
+
+	public void setLinked(boolean linked) {
+		this.linked = linked;
+	}
+
+	/**
+	 * @see #getAbiFingerprint()
+	 */
+	private Long abiFingerprint;
+
+	/**
+	 * Fingerprint of the ABI of all classes of this module, see
+	 * {@link AbiFingerprint#of(ModuleModel)}. Computed once, on the first
+	 * call after the dependencies have been resolved.
+	 */
+	public synchronized long getAbiFingerprint() {
+		projectModel.checkDependenciesResolved();
+		if (abiFingerprint == null) {
+			abiFingerprint = AbiFingerprint.of(this);
+		}
+		return abiFingerprint;
+	}
+
 	public void addClass(ClassModel clazz) {
 		if (clazz.module != null) {
 			clazz.module.classes.remove(clazz);
@@ -149,7 +209,11 @@ public class ModuleModel implements ModelNode {
 		return isIncluded(model.getQualifiedName());
 	}
 
-	private boolean isIncluded(String qualifiedName) {
+	/**
+	 * Check if the class with the given name is matched by the inclusion and
+	 * exclusion patterns of this module
+	 */
+	public boolean isIncluded(String qualifiedName) {
 		ClassPattern bestInclusionMatch = ClassPattern.getBestMatch(
 				inclusionPatterns, qualifiedName);
 		ClassPattern bestExclusionMatch = ClassPattern.getBestMatch(
@@ -191,6 +255,21 @@ public class ModuleModel implements ModelNode {
 		return allAccessibleModules.contains(clazz.getModule());
 	}
 
+	/**
+	 * Check if the classes of the given module are accessible from this
+	 * module
+	 */
+	public boolean isAccessible(ModuleModel module) {
+		return allAccessibleModules.contains(module);
+	}
+
+	/**
+	 * @see #allAccessibleModules
+	 */
+	public Set<ModuleModel> getAllAccessibleModules() {
+		return Collections.unmodifiableSet(allAccessibleModules);
+	}
+
 	public String details() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("Module " + qualifiedNameOfRepresentingClass + "\n");
@@ -244,6 +323,51 @@ public class ModuleModel implements ModelNode {
 		return Collections.unmodifiableSet(allModuleDependencies);
 	}
 
+	/**
+	 * Modules directly importing or exporting this module.
+	 */
+	public Set<ModuleModel> getReferencingModules() {
+		return Collections.unmodifiableSet(referencingModules);
+	}
+
+	/**
+	 * All modules depending upon this module. Includes transitive dependencies
+	 * and this module itself.
+	 */
+	public Set<ModuleModel> getAllDependentModules() {
+		return Collections.unmodifiableSet(allDependentModules);
+	}
+
+	/**
+	 * Modules containing classes used by the classes of this module. Does not
+	 * include this module itself.
+	 */
+	public Set<ModuleModel> getUsedModules() {
+		return Collections.unmodifiableSet(classEdges.keySet());
+	}
+
+	/**
+	 * Return the usages of classes of the given module by classes of this
+	 * module.
+	 */
+	public Set<ClassEdge> getClassEdges(ModuleModel usedModule) {
+		Set<ClassEdge> result = classEdges.get(usedModule);
+		if (result == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+	void addClassEdge(ClassEdge edge) {
+		ModuleModel usedModule = edge.getTo().module;
+		Set<ClassEdge> edges = classEdges.get(usedModule);
+		if (edges == null) {
+			edges = new HashSet<>();
+			classEdges.put(usedModule, edges);
+		}
+		edges.add(edge);
+	}
+
 	/**
 	 * Modules directly imported by this module.
 	 */
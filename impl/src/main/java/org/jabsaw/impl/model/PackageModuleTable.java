@@ -0,0 +1,102 @@
+package org.jabsaw.impl.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps class names to modules with a single hash lookup of the package name.
+ * Classes in packages containing classes of different modules (or classes in
+ * a module and classes in no module) and classes in packages unknown to the
+ * project, for example classes generated at runtime, are resolved with
+ * {@link ProjectModel#resolveModule(String)}. Since module patterns can match
+ * individual class names, the results are cached per class. The cache is
+ * bounded, as a JVM can generate an unlimited number of proxy and lambda
+ * classes.
+ */
+public class PackageModuleTable {
+
+	private final ProjectModel project;
+
+	/**
+	 * The module of all classes in a package. Contains null values for
+	 * packages whose classes are in no module.
+	 */
+	private final Map<String, ModuleModel> packageModules = new HashMap<>();
+
+	/**
+	 * Packages with classes of more than one module
+	 */
+	private final Set<String> mixedPackages = new HashSet<>();
+
+	/**
+	 * Modules of classes in mixed or unknown packages, {@link #NO_MODULE} for
+	 * classes in no module. Cleared when {@link #MAX_RESOLVED_CLASSES} is
+	 * reached.
+	 */
+	private final ConcurrentHashMap<String, Object> resolvedClasses = new ConcurrentHashMap<>();
+
+	static final int MAX_RESOLVED_CLASSES = 4096;
+
+	private static final Object NO_MODULE = new Object();
+
+	PackageModuleTable(ProjectModel project) {
+		this.project = project;
+		for (ClassModel clazz : project.getClasses().values()) {
+			String pkg = getPackage(clazz.getQualifiedName());
+			if (mixedPackages.contains(pkg)) {
+				continue;
+			}
+			if (!packageModules.containsKey(pkg)) {
+				packageModules.put(pkg, clazz.getModule());
+			} else if (packageModules.get(pkg) != clazz.getModule()) {
+				packageModules.remove(pkg);
+				mixedPackages.add(pkg);
+			}
+		}
+	}
+
+	private static String getPackage(String className) {
+		int idx = className.lastIndexOf('.');
+		return idx < 0 ? "" : className.substring(0, idx);
+	}
+
+	/**
+	 * Return the module of the class with the given name, or null if the class
+	 * is in no module.
+	 */
+	public ModuleModel getModule(String className) {
+		String pkg = getPackage(className);
+		ModuleModel module = packageModules.get(pkg);
+		if (module != null || packageModules.containsKey(pkg)) {
+			return module;
+		}
+
+		Object cached = resolvedClasses.get(className);
+		if (cached == null) {
+			module = project.resolveModule(className);
+			cached = module == null ? NO_MODULE : module;
+			if (resolvedClasses.size() >= MAX_RESOLVED_CLASSES) {
+				resolvedClasses.clear();
+			}
+			resolvedClasses.put(className, cached);
+		}
+		return cached == NO_MODULE ? null : (ModuleModel) cached;
+	}
+
+	/**
+	 * Number of classes whose module is cached
+	 */
+	int getResolvedClassCount() {
+		return resolvedClasses.size();
+	}
+
+	/**
+	 * True if the classes of the given package belong to different modules
+	 */
+	public boolean isMixedPackage(String pkg) {
+		return mixedPackages.contains(pkg);
+	}
+}
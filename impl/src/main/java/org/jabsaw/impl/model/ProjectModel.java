@@ -1,6 +1,7 @@
 package org.jabsaw.impl.model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,32 +44,93 @@ public class ProjectModel {
 		return classes.get(qualifiedName);
 	}
 
+	/**
+	 * Find the class with the given name. Since nested classes are merged into
+	 * their toplevel classes when resolving the dependencies, name parts
+	 * following a '$' are stripped until a class is found. Thus nested,
+	 * anonymous and synthetic classes are mapped to their toplevel class.
+	 */
+	public ClassModel findClassModel(String qualifiedName) {
+		String name = qualifiedName;
+		while (true) {
+			ClassModel clazz = classes.get(name);
+			if (clazz != null) {
+				return clazz;
+			}
+			int idx = name.lastIndexOf('$');
+			if (idx <= 0) {
+				return null;
+			}
+			name = name.substring(0, idx);
+		}
+	}
+
 	public Map<String, ModuleModel> getModules() {
 		return Collections.unmodifiableMap(modules);
 	}
 
 	public Set<ModuleModel> getMatchingModules(ClassModel clazz) {
+		return getMatchingModules(clazz.getQualifiedName());
+	}
+
+	/**
+	 * Return the modules whose patterns match the given class name
+	 */
+	public Set<ModuleModel> getMatchingModules(String qualifiedName) {
 		Set<ModuleModel> result = new HashSet<>();
 		for (ModuleModel module : modules.values()) {
-			if (module.isIncluded(clazz)) {
+			if (module.isIncluded(qualifiedName)) {
 				result.add(module);
 			}
 		}
 		return result;
 	}
 
-	void addClass(ClassModel clazz) {
+	/**
+	 * Determine the module of the class with the given name. If the class is
+	 * part of the project (see {@link #findClassModel(String)}), its module is
+	 * returned. Otherwise the module is determined from the module patterns,
+	 * the same way {@link ClassModel#resolveModule()} does. This covers
+	 * classes generated at runtime. Returns null if no module or multiple
+	 * modules match.
+	 */
+	public ModuleModel resolveModule(String qualifiedName) {
+		ClassModel clazz = findClassModel(qualifiedName);
+		if (clazz != null) {
+			return clazz.getModule();
+		}
+		Set<ModuleModel> matchingModules = getMatchingModules(qualifiedName);
+		if (matchingModules.size() == 1) {
+			return matchingModules.iterator().next();
+		}
+		return null;
+	}
+
+	/**
+	 * Synchronized, since classes may be parsed concurrently
+	 */
+	synchronized void addClass(ClassModel clazz) {
 		checkDependenciesNotResolved();
 		classes.put(clazz.getQualifiedName(), clazz);
 	}
 
-	void addModule(ModuleModel module) {
+	synchronized void addModule(ModuleModel module) {
 		checkDependenciesNotResolved();
 		modules.put(module.getQualifiedNameOfRepresentingClass(), module);
 	}
 
 	boolean dependenciesResolved = false;
 
+	private DependencyGraph dependencyGraph;
+
+	private PackageModuleTable packageModuleTable;
+
+	private ClassHierarchy classHierarchy;
+
+	private AnnotationIndex annotationIndex;
+
+	private final MemberTable memberTable = new MemberTable();
+
 	public void checkDependenciesResolved() {
 		if (!dependenciesResolved) {
 			throw new Error("use resolveDependencies() to resolve dependencies");
@@ -108,12 +170,29 @@ public class ProjectModel {
 		for (ClassModel classModel : new ArrayList<>(classes.values())) {
 			if (classModel.outerClass != null) {
 				// merge class with toplevel class
-				classModel.getToplevelClass().usesClasses
-						.addAll(classModel.usesClasses);
+				ClassModel toplevelClass = classModel.getToplevelClass();
+				for (ClassModel used : classModel.usesClasses) {
+					toplevelClass.addUsesClass(used,
+							classModel.getDependencyKinds(used));
+				}
+				toplevelClass.nestedClasses.add(classModel);
 				classes.remove(classModel.getQualifiedName());
 			}
 		}
 
+		// build the reverse dependency index and record the class usages
+		// crossing module boundaries
+		for (ClassModel classModel : classes.values()) {
+			for (ClassModel used : classModel.usesClasses) {
+				used.usedByClasses.add(classModel);
+				if (classModel.module != null && used.module != null
+						&& classModel.module != used.module) {
+					classModel.module.addClassEdge(new ClassEdge(classModel,
+							used));
+				}
+			}
+		}
+
 		for (ModuleModel moduleModel : modules.values()) {
 			moduleModel.resolveDependencies();
 		}
@@ -125,6 +204,7 @@ public class ProjectModel {
 		calculateExportedModules();
 		calculateAccessibleModules();
 		calculateModuleDependencies();
+		calculateDependentModules();
 	}
 
 	private static class Edge {
@@ -191,6 +271,17 @@ public class ProjectModel {
 		}
 	}
 
+	private void calculateDependentModules() {
+		for (ModuleModel module : modules.values()) {
+			for (ModuleModel referenced : module.getReferencedModules()) {
+				referenced.referencingModules.add(module);
+			}
+			for (ModuleModel dependency : module.allModuleDependencies) {
+				dependency.allDependentModules.add(module);
+			}
+		}
+	}
+
 	private SimpleDirectedGraph<ModuleModel, Edge> buildExportGraph() {
 		SimpleDirectedGraph<ModuleModel, Edge> g = new SimpleDirectedGraph<>(
 				new EdgeFactory<ModuleModel, Edge>() {
@@ -232,13 +323,71 @@ public class ProjectModel {
 		return modules.get(qualifiedNameOfRepresentingClass);
 	}
 
+	/**
+	 * Find a module either by the qualified name of the representing class or
+	 * by it's name. Returns null if no module matches.
+	 */
+	public ModuleModel findModule(String identification) {
+		ModuleModel result = modules.get(identification);
+		if (result != null) {
+			return result;
+		}
+		for (ModuleModel module : modules.values()) {
+			if (identification.equals(module.getName())) {
+				return module;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return all classes directly using the class with the given qualified
+	 * name. If the class is not known, the empty set is returned.
+	 */
+	public Set<ClassModel> getUsingClasses(String qualifiedName) {
+		checkDependenciesResolved();
+		ClassModel clazz = classes.get(qualifiedName);
+		if (clazz == null) {
+			return Collections.emptySet();
+		}
+		return clazz.getUsedByClasses();
+	}
+
+	/**
+	 * Return all modules depending on the module with the given representing
+	 * class, including transitive dependencies. If the module is not known,
+	 * the empty set is returned.
+	 */
+	public Set<ModuleModel> getDependentModules(
+			String qualifiedNameOfRepresentingClass) {
+		checkDependenciesResolved();
+		ModuleModel module = modules.get(qualifiedNameOfRepresentingClass);
+		if (module == null) {
+			return Collections.emptySet();
+		}
+		return module.getAllDependentModules();
+	}
+
 	/**
 	 * Check if all classes respect the accessibility boundaries defined by the
 	 * modules.
 	 */
 	public void checkClassAccessibility(List<String> errors) {
+		checkClassAccessibility(errors, DependencyKind.ALL);
+	}
+
+	/**
+	 * Check if all dependencies of the given {@link DependencyKind}s respect
+	 * the accessibility boundaries defined by the modules. For example, pass
+	 * {@link DependencyKind#API} to ignore usages within method bodies.
+	 * Linked classes (see {@link ClassModel#isLinked()}) are not checked,
+	 * since they have been checked within their own artifact.
+	 */
+	public void checkClassAccessibility(List<String> errors, int kinds) {
 		for (ClassModel clazz : classes.values()) {
-			clazz.checkAccessibilityOfUsedClasses(errors);
+			if (!clazz.isLinked()) {
+				clazz.checkAccessibilityOfUsedClasses(errors, kinds);
+			}
 		}
 	}
 
@@ -247,7 +396,7 @@ public class ProjectModel {
 	 */
 	public void checkAllClassesInModule(List<String> errors) {
 		for (ClassModel clazz : classes.values()) {
-			if (clazz.getModule() == null) {
+			if (clazz.getModule() == null && !clazz.isLinked()) {
 				errors.add("Class " + clazz + " is in no module");
 			}
 		}
@@ -266,6 +415,138 @@ public class ProjectModel {
 		return sb.toString();
 	}
 
+	/**
+	 * Return the int indexed dependency graph of this project. The graph is
+	 * built on the first call.
+	 */
+	public synchronized DependencyGraph getDependencyGraph() {
+		checkDependenciesResolved();
+		if (dependencyGraph == null) {
+			dependencyGraph = new DependencyGraph(this);
+		}
+		return dependencyGraph;
+	}
+
+	/**
+	 * Return the table mapping class names to modules by package. The table
+	 * is built on the first call.
+	 */
+	public synchronized PackageModuleTable getPackageModuleTable() {
+		checkDependenciesResolved();
+		if (packageModuleTable == null) {
+			packageModuleTable = new PackageModuleTable(this);
+		}
+		return packageModuleTable;
+	}
+
+	/**
+	 * Return all classes of this project, each toplevel class followed by its
+	 * nested classes. Nested classes are separated from the toplevel classes
+	 * while resolving the dependencies.
+	 */
+	public List<ClassModel> getAllClasses() {
+		checkDependenciesResolved();
+		List<ClassModel> result = new ArrayList<>();
+		for (ClassModel clazz : classes.values()) {
+			result.add(clazz);
+			result.addAll(clazz.getNestedClasses());
+		}
+		return result;
+	}
+
+	/**
+	 * Return the class hierarchy index of this project. The index is built on
+	 * the first call.
+	 */
+	public synchronized ClassHierarchy getClassHierarchy() {
+		checkDependenciesResolved();
+		if (classHierarchy == null) {
+			classHierarchy = new ClassHierarchy(this);
+		}
+		return classHierarchy;
+	}
+
+	/**
+	 * Return the index of the annotated elements of this project. The index is
+	 * built on the first call.
+	 */
+	public synchronized AnnotationIndex getAnnotationIndex() {
+		checkDependenciesResolved();
+		if (annotationIndex == null) {
+			annotationIndex = new AnnotationIndex(this);
+		}
+		return annotationIndex;
+	}
+
+	/**
+	 * The member references recorded while parsing in member-level mode
+	 */
+	public MemberTable getMemberTable() {
+		return memberTable;
+	}
+
+	/**
+	 * Return the fields and methods of the given module which are referenced
+	 * from classes outside of the module, ordered by id. A member belongs to
+	 * the module of the owner named in the referencing instruction. Only
+	 * classes parsed in member-level mode contribute references.
+	 */
+	public List<MemberReference> getUsedMembers(ModuleModel module) {
+		checkDependenciesResolved();
+		BitSet checked = new BitSet();
+		BitSet used = new BitSet();
+		for (ClassModel clazz : classes.values()) {
+			if (clazz.getModule() == module) {
+				continue;
+			}
+			addUsedMembers(module, clazz, checked, used);
+			for (ClassModel nested : clazz.getNestedClasses()) {
+				addUsedMembers(module, nested, checked, used);
+			}
+		}
+
+		List<MemberReference> result = new ArrayList<>(used.cardinality());
+		for (int id = used.nextSetBit(0); id >= 0; id = used.nextSetBit(id + 1)) {
+			result.add(memberTable.get(id));
+		}
+		return result;
+	}
+
+	private void addUsedMembers(ModuleModel module, ClassModel clazz,
+			BitSet checked, BitSet used) {
+		for (int id : clazz.getMemberReferenceIds()) {
+			if (!checked.get(id)) {
+				checked.set(id);
+				ClassModel owner = findClassModel(memberTable.get(id)
+						.getOwnerName());
+				if (owner != null && owner.getModule() == module) {
+					used.set(id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Explain why one module depends on another. Returns a shortest chain of
+	 * direct module dependencies leading from the first to the second module.
+	 * Each step records the imports, exports and class usages causing it. If
+	 * there is no dependency, the empty list is returned.
+	 */
+	public List<ModuleEdge> explainModuleDependency(ModuleModel from,
+			ModuleModel to) {
+		return getDependencyGraph().findModulePath(from, to);
+	}
+
+	/**
+	 * Explain why one class depends on another. Returns a shortest chain of
+	 * classes using each other, starting with the first and ending with the
+	 * second class. If there is no dependency, the empty list is returned.
+	 */
+	public List<ClassModel> explainClassDependency(ClassModel from,
+			ClassModel to) {
+		return getDependencyGraph().findClassPath(from, to);
+	}
+
 	public boolean isDependenciesResolved() {
 		return dependenciesResolved;
 	}
@@ -0,0 +1,157 @@
+package org.jabsaw.impl.model;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Modules which need to be recompiled, determined by comparing the ABI
+ * fingerprints (see {@link AbiFingerprint}) of a baseline
+ * {@link ModelSnapshot} with the current snapshot. A module whose ABI changed
+ * requires all modules depending on it to be recompiled, which are found by
+ * following the module dependencies of the current snapshot backwards. The
+ * modules which depended on a removed module are taken from the baseline.
+ * Modules not listed can skip compilation.
+ */
+public class RecompileReport {
+
+	final List<String> changedModules = new ArrayList<>();
+	final List<String> removedModules = new ArrayList<>();
+	final List<String> downstreamModules = new ArrayList<>();
+	final List<String> changedClasses = new ArrayList<>();
+
+	/**
+	 * Compare a baseline snapshot with the current snapshot
+	 */
+	public static RecompileReport compare(ModelSnapshot baseline,
+			ModelSnapshot current) {
+		RecompileReport report = new RecompileReport();
+
+		BitSet changed = new BitSet();
+		for (int i = 0; i < current.moduleNames.length; i++) {
+			int idx = Arrays.binarySearch(baseline.moduleNames,
+					current.moduleNames[i]);
+			if (idx < 0
+					|| baseline.moduleFingerprints[idx] != current.moduleFingerprints[i]) {
+				changed.set(i);
+				report.changedModules.add(current.moduleNames[i]);
+			}
+		}
+		BitSet removed = new BitSet();
+		for (int i = 0; i < baseline.moduleNames.length; i++) {
+			if (Arrays.binarySearch(current.moduleNames,
+					baseline.moduleNames[i]) < 0) {
+				removed.set(i);
+				report.removedModules.add(baseline.moduleNames[i]);
+			}
+		}
+
+		// modules which depended on a removed module in the baseline need to
+		// be recompiled as well, even if they do not depend on it anymore
+		BitSet affected = new BitSet();
+		affected.or(changed);
+		BitSet dependingOnRemoved = getModuleGraph(baseline).reachable(
+				removed, true);
+		for (int i = dependingOnRemoved.nextSetBit(0); i >= 0; i = dependingOnRemoved
+				.nextSetBit(i + 1)) {
+			int idx = Arrays.binarySearch(current.moduleNames,
+					baseline.moduleNames[i]);
+			if (idx >= 0) {
+				affected.set(idx);
+			}
+		}
+
+		affected = getModuleGraph(current).reachable(affected, true);
+		affected.andNot(changed);
+		for (int i = affected.nextSetBit(0); i >= 0; i = affected
+				.nextSetBit(i + 1)) {
+			report.downstreamModules.add(current.moduleNames[i]);
+		}
+
+		for (int i = 0; i < current.classNames.length; i++) {
+			int idx = Arrays.binarySearch(baseline.classNames,
+					current.classNames[i]);
+			if (idx >= 0
+					&& baseline.classFingerprints[idx] != current.classFingerprints[i]) {
+				report.changedClasses.add(current.classNames[i]);
+			}
+		}
+		return report;
+	}
+
+	private static IntGraph getModuleGraph(ModelSnapshot snapshot) {
+		int[] sources = new int[snapshot.moduleEdges.length];
+		int[] targets = new int[snapshot.moduleEdges.length];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = ModelSnapshot.source(snapshot.moduleEdges[i]);
+			targets[i] = ModelSnapshot.target(snapshot.moduleEdges[i]);
+		}
+		return new IntGraph(snapshot.moduleNames.length, sources, targets,
+				sources.length);
+	}
+
+	/**
+	 * Modules whose ABI changed, including new modules
+	 */
+	public List<String> getChangedModules() {
+		return Collections.unmodifiableList(changedModules);
+	}
+
+	public List<String> getRemovedModules() {
+		return Collections.unmodifiableList(removedModules);
+	}
+
+	/**
+	 * Modules whose ABI did not change, but which transitively depend on a
+	 * module whose ABI changed, or depended on a removed module in the
+	 * baseline
+	 */
+	public List<String> getDownstreamModules() {
+		return Collections.unmodifiableList(downstreamModules);
+	}
+
+	/**
+	 * Classes present in both snapshots whose ABI changed
+	 */
+	public List<String> getChangedClasses() {
+		return Collections.unmodifiableList(changedClasses);
+	}
+
+	/**
+	 * All modules which need to be recompiled: the changed modules and the
+	 * downstream modules
+	 */
+	public List<String> getModulesToRecompile() {
+		List<String> result = new ArrayList<>(changedModules);
+		result.addAll(downstreamModules);
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Print a human readable report
+	 */
+	public void print(PrintWriter out) {
+		print(out, "Modules with changed ABI", changedModules);
+		print(out, "Removed modules", removedModules);
+		print(out, "Downstream modules to recompile", downstreamModules);
+		print(out, "Classes with changed ABI", changedClasses);
+		if (changedModules.isEmpty() && removedModules.isEmpty()) {
+			out.println("No ABI changes, no modules need to be recompiled");
+		}
+		out.flush();
+	}
+
+	private void print(PrintWriter out, String title, List<String> items) {
+		if (items.isEmpty()) {
+			return;
+		}
+		out.println(title + " (" + items.size() + "):");
+		for (String item : items) {
+			out.println("  " + item);
+		}
+	}
+}
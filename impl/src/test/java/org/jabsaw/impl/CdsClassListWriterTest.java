@@ -0,0 +1,32 @@
+package org.jabsaw.impl;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class CdsClassListWriterTest {
+
+	@Test
+	public void test() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		StringWriter writer = new StringWriter();
+		new CdsClassListWriter().write(
+				project.getModule(TestModuleA.class.getName()), writer);
+		String list = writer.toString();
+
+		Assert.assertEquals(4, list.split("\n").length);
+		Assert.assertTrue(list.indexOf("org/jabsaw/impl/TestClassB\n") < list
+				.indexOf("org/jabsaw/impl/TestClassA\n"));
+	}
+}
@@ -1,15 +1,24 @@
 package org.jabsaw.impl;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.jabsaw.Module;
 import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyKind;
+import org.jabsaw.impl.model.MemberReference;
 import org.jabsaw.impl.model.ModuleModel;
 import org.jabsaw.impl.model.ProjectModel;
 import org.junit.Assert;
 import org.junit.Test;
+import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 
 public class ClassParserTest {
 
@@ -182,6 +191,263 @@ public class ClassParserTest {
 				TestAccessedField.class);
 	}
 
+	@Test
+	public void dependencyKinds() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(getClass().getResourceAsStream(
+				"ClassParserTest$TestClass.class")));
+		Map<String, Integer> kinds = parser.getProject()
+				.getClassModel(TestClass.class.getName())
+				.getUsesClassNameKinds();
+
+		// the owner of the invoked super constructor is only recorded in
+		// member-level mode
+		Assert.assertEquals(DependencyKind.INHERITANCE,
+				(int) kinds.get(TestSuperClass.class.getName()));
+		Assert.assertEquals(DependencyKind.INHERITANCE,
+				(int) kinds.get(TestInterface.class.getName()));
+		Assert.assertEquals(DependencyKind.FIELD_TYPE,
+				(int) kinds.get(TestField.class.getName()));
+		// parameters are part of the local variable table, too
+		int parameterKinds = kinds.get(TestMethodParameter.class.getName());
+		Assert.assertTrue((parameterKinds & DependencyKind.SIGNATURE) != 0);
+		Assert.assertEquals(DependencyKind.SIGNATURE,
+				(int) kinds.get(RuntimeException.class.getName()));
+		Assert.assertEquals(DependencyKind.METHOD_BODY,
+				(int) kinds.get(TestLoadedType.class.getName()));
+		Assert.assertEquals(DependencyKind.ANNOTATION,
+				(int) kinds.get(TestNestedAnnotationDirect.class.getName()));
+	}
+
+	/**
+	 * Generate a class whose public method is annotated with an annotation
+	 * with the given element values
+	 */
+	private byte[] generateAnnotatedClass(Object value, String enumValue) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "foo/Generated", null,
+				"java/lang/Object", null);
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run",
+				"()V", null, null);
+		AnnotationVisitor annotation = method.visitAnnotation(
+				"Lfoo/Qualifier;", true);
+		annotation.visit("value", value);
+		AnnotationVisitor array = annotation.visitArray("policies");
+		array.visitEnum(null, "Ljava/lang/annotation/RetentionPolicy;",
+				enumValue);
+		array.visitEnd();
+		annotation.visitEnd();
+		method.visitCode();
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	@Test
+	public void abiFingerprintOfAnnotationValues() {
+		long fingerprint = abiFingerprint(generateAnnotatedClass("a",
+				"RUNTIME"));
+		Assert.assertEquals(fingerprint,
+				abiFingerprint(generateAnnotatedClass("a", "RUNTIME")));
+		Assert.assertNotEquals(fingerprint,
+				abiFingerprint(generateAnnotatedClass("b", "RUNTIME")));
+		Assert.assertNotEquals(fingerprint,
+				abiFingerprint(generateAnnotatedClass("a", "CLASS")));
+		Assert.assertNotEquals(
+				abiFingerprint(generateAnnotatedClass(new int[] { 1, 2 },
+						"RUNTIME")),
+				abiFingerprint(generateAnnotatedClass(new int[] { 1, 3 },
+						"RUNTIME")));
+	}
+
+	/**
+	 * Generate a class with a public method returning the given constant and
+	 * an optional additional method
+	 */
+	private byte[] generateClass(int constant, int extraMethodAccess) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "foo/Generated", null,
+				"java/lang/Object", null);
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "get",
+				"()I", null, null);
+		method.visitCode();
+		method.visitLdcInsn(constant);
+		method.visitInsn(Opcodes.IRETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		if (extraMethodAccess != -1) {
+			method = writer.visitMethod(extraMethodAccess, "extra", "()V",
+					null, null);
+			method.visitCode();
+			method.visitInsn(Opcodes.RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private long abiFingerprint(byte[] classFile) {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(classFile));
+		return parser.getProject().getClassModel("foo.Generated")
+				.getAbiFingerprint();
+	}
+
+	@Test
+	public void abiFingerprint() {
+		long fingerprint = abiFingerprint(generateClass(1, -1));
+		Assert.assertEquals(fingerprint, abiFingerprint(generateClass(1, -1)));
+		// method bodies and private methods are not part of the ABI
+		Assert.assertEquals(fingerprint, abiFingerprint(generateClass(2, -1)));
+		Assert.assertEquals(fingerprint,
+				abiFingerprint(generateClass(1, Opcodes.ACC_PRIVATE)));
+		Assert.assertNotEquals(fingerprint,
+				abiFingerprint(generateClass(1, Opcodes.ACC_PUBLIC)));
+		Assert.assertNotEquals(fingerprint,
+				abiFingerprint(generateClass(1, Opcodes.ACC_PROTECTED)));
+	}
+
+	private byte[] generateNestedClass(String name, String outerName,
+			String innerName, int innerAccess, String methodName) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_SUPER, name, null,
+				"java/lang/Object", null);
+		if (outerName == null) {
+			writer.visitOuterClass("foo/Outer", "run", "()V");
+		}
+		writer.visitInnerClass(name, outerName, innerName, innerAccess);
+		if (methodName != null) {
+			writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT,
+					methodName, "()V", null, null).visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private long outerAbiFingerprint(byte[]... nestedClasses) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "foo/Outer", null,
+				"java/lang/Object", null);
+		writer.visitEnd();
+
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(writer.toByteArray()));
+		for (byte[] nested : nestedClasses) {
+			parser.parse(new ClassReader(nested));
+		}
+		parser.getProject().resolveDependencies();
+		ClassModel outer = parser.getProject().getClassModel("foo.Outer");
+		Assert.assertEquals(nestedClasses.length, outer.getNestedClasses()
+				.size());
+		return outer.getAbiFingerprint();
+	}
+
+	@Test
+	public void abiFingerprintOfNestedClasses() {
+		long fingerprint = outerAbiFingerprint();
+		// anonymous, local and private member classes are not part of the ABI
+		Assert.assertEquals(fingerprint, outerAbiFingerprint(
+				generateNestedClass("foo/Outer$1", null, null, 0, "run")));
+		Assert.assertEquals(fingerprint, outerAbiFingerprint(
+				generateNestedClass("foo/Outer$1Local", null, "Local", 0,
+						"run")));
+		Assert.assertEquals(fingerprint, outerAbiFingerprint(
+				generateNestedClass("foo/Outer$Private", "foo/Outer",
+						"Private", Opcodes.ACC_PRIVATE, "run")));
+
+		long withPublic = outerAbiFingerprint(generateNestedClass(
+				"foo/Outer$Public", "foo/Outer", "Public",
+				Opcodes.ACC_PUBLIC, null));
+		Assert.assertNotEquals(fingerprint, withPublic);
+		Assert.assertNotEquals(withPublic, outerAbiFingerprint(
+				generateNestedClass("foo/Outer$Public", "foo/Outer",
+						"Public", Opcodes.ACC_PUBLIC, "run")));
+	}
+
+	@Test
+	public void arrayOwners() {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, "foo/Generated", null,
+				"java/lang/Object", null);
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "copy",
+				"()V", null, null);
+		method.visitCode();
+		for (String owner : new String[] { "[Lfoo/Bar;", "[[Lfoo/Baz;", "[I" }) {
+			method.visitInsn(Opcodes.ACONST_NULL);
+			method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, "clone",
+					"()Ljava/lang/Object;", false);
+			method.visitInsn(Opcodes.POP);
+		}
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		writer.visitEnd();
+
+		ClassParser parser = new ClassParser();
+		parser.setRecordMemberReferences(true);
+		parser.parse(new ClassReader(writer.toByteArray()));
+		Set<String> names = parser.getProject()
+				.getClassModel("foo.Generated").getUsesClassNames();
+		assertContains("foo.Bar", names);
+		assertContains("foo.Baz", names);
+		for (String name : names) {
+			Assert.assertFalse(name, name.endsWith("[]"));
+		}
+	}
+
+	@Test
+	public void parseMemberReferences() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(getClass().getResourceAsStream(
+				"ClassParserTest$TestClass.class")));
+		ClassModel clazz = parser.getProject().getClassModel(
+				TestClass.class.getName());
+		Assert.assertFalse(clazz.getUsesClassNames().contains(
+				System.class.getName()));
+		Assert.assertEquals(0, clazz.getMemberReferenceIds().length);
+
+		parser = new ClassParser();
+		parser.setRecordMemberReferences(true);
+		parser.parse(new ClassReader(getClass().getResourceAsStream(
+				"ClassParserTest$TestClass.class")));
+		clazz = parser.getProject().getClassModel(TestClass.class.getName());
+		// the owner of a member is a dependency in member-level mode
+		assertContainsName(System.class, clazz.getUsesClassNames());
+		Set<String> references = new HashSet<>();
+		for (MemberReference reference : clazz.getMemberReferences()) {
+			references.add(reference.toString());
+		}
+		assertContains("java.lang.System.out", references);
+		assertContains("java.io.PrintStream.println(Ljava/lang/Object;)V",
+				references);
+	}
+
+	@Test
+	public void usedMembers() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.setRecordMemberReferences(true);
+		parser.parse(new ClassReader(TestMemberUser.class.getName()));
+		parser.parse(new ClassReader(TestMemberOwner.class.getName()));
+		parser.parse(new ClassReader(TestMemberModuleA.class.getName()));
+		parser.parse(new ClassReader(TestMemberModuleB.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		List<MemberReference> used = project.getUsedMembers(project
+				.getModule(TestMemberModuleB.class.getName()));
+		Assert.assertEquals(1, used.size());
+		Assert.assertEquals(TestMemberOwner.class.getName(), used.get(0)
+				.getOwnerName());
+		Assert.assertEquals("foo", used.get(0).getName());
+		Assert.assertTrue(used.get(0).isMethod());
+		Assert.assertTrue(project.getUsedMembers(
+				project.getModule(TestMemberModuleA.class.getName()))
+				.isEmpty());
+	}
+
 	private void assertContainsNames(Set<String> names, Class<?>... cls) {
 		for (Class<?> c : cls) {
 			assertContainsName(c, names);
@@ -0,0 +1,54 @@
+package org.jabsaw.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ImpactAnalysisTest {
+
+	@Test
+	public void test() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		ImpactAnalysis.Result result = new ImpactAnalysis(project)
+				.analyze(Arrays.asList(TestClassB.class.getName() + "$Foo",
+						"foo.Bar"));
+		Assert.assertEquals(1, result.getChangedClasses().size());
+		Assert.assertEquals(2, result.getAffectedClasses().size());
+		Assert.assertTrue(result.getAffectedClasses().contains(
+				project.getClassModel(TestClassA.class.getName())));
+		Assert.assertEquals(2, result.getAffectedModules().size());
+		Assert.assertEquals(Collections.singleton("foo.Bar"),
+				result.getUnknownClassNames());
+
+		result = new ImpactAnalysis(project).analyze(Arrays
+				.asList(TestClassA.class.getName()));
+		Assert.assertEquals(1, result.getAffectedClasses().size());
+	}
+
+	@Test
+	public void toClassName() {
+		List<Path> dirs = Arrays.asList(Paths.get("/tmp/classes"));
+		Assert.assertEquals("foo.Bar$1",
+				ImpactAnalysis.toClassName("foo/Bar$1.class", dirs));
+		Assert.assertEquals("foo.Bar",
+				ImpactAnalysis.toClassName("/tmp/classes/foo/Bar.class", dirs));
+		Assert.assertEquals("foo.Bar",
+				ImpactAnalysis.toClassName("foo.Bar", dirs));
+		Assert.assertNull(ImpactAnalysis.toClassName("/other/Bar.class", dirs));
+	}
+}
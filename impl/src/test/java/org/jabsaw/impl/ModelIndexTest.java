@@ -0,0 +1,103 @@
+package org.jabsaw.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ModelIndexTest {
+
+	@Test
+	public void roundTrip() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.setRecordMemberReferences(true);
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		parser.parse(new ClassReader(ClassNestingTestClass.class.getName()));
+		parser.parse(new ClassReader(
+				ClassNestingTestClass.InnerClass.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelIndex.write(project, out);
+
+		ProjectModel read = new ProjectModel();
+		ModelIndex.read(new ByteArrayInputStream(out.toByteArray()), read);
+		read.resolveDependencies();
+
+		Assert.assertEquals(project.getClasses().keySet(), read.getClasses()
+				.keySet());
+		Assert.assertEquals(project.getModules().keySet(), read.getModules()
+				.keySet());
+
+		ModuleModel moduleA = read.getModule(TestModuleA.class.getName());
+		Assert.assertEquals(
+				project.getModule(TestModuleA.class.getName()).getClasses()
+						.size(), moduleA.getClasses().size());
+		Assert.assertTrue(moduleA.getExportedModules().contains(
+				read.getModule(TestModuleB.class.getName())));
+
+		ClassModel classA = read.getClassModel(TestClassA.class.getName());
+		Assert.assertTrue(classA.getUsesClasses().contains(
+				read.getClassModel(TestClassB.class.getName())));
+		Assert.assertEquals(Object.class.getName(), classA.superClassName);
+		Assert.assertEquals(
+				project.getClassModel(TestClassA.class.getName()).getAccess(),
+				classA.getAccess());
+		Assert.assertEquals(
+				project.getClassModel(TestClassA.class.getName())
+						.getMemberReferences().toString(), classA
+						.getMemberReferences().toString());
+		Assert.assertFalse(classA.getMemberReferences().isEmpty());
+
+		ClassModel nesting = read.getClassModel(ClassNestingTestClass.class
+				.getName());
+		Assert.assertEquals(1, nesting.getNestedClasses().size());
+		Assert.assertEquals(
+				project.getClassModel(ClassNestingTestClass.class.getName())
+						.getClassFileSize(), nesting.getClassFileSize());
+		Assert.assertEquals(
+				project.getClassModel(ClassNestingTestClass.class.getName())
+						.getAbiFingerprint(), nesting.getAbiFingerprint());
+	}
+
+	@Test
+	public void truncatedIndex() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelIndex.write(parser.getProject(), out);
+		byte[] index = out.toByteArray();
+
+		for (int length = 8; length < index.length; length++) {
+			ProjectModel project = new ProjectModel();
+			try {
+				ModelIndex.read(
+						new ByteArrayInputStream(Arrays.copyOf(index, length)),
+						project);
+				Assert.fail("truncated index read, length " + length);
+			} catch (IOException e) {
+				// expected
+			}
+			Assert.assertTrue(project.getClasses().isEmpty());
+			Assert.assertTrue(project.getModules().isEmpty());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidIndex() throws IOException {
+		ModelIndex.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5,
+				6, 7, 8 }), new ProjectModel());
+	}
+}
@@ -0,0 +1,60 @@
+package org.jabsaw.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+public class ModuleJarWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void test() throws Exception {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		Path classes = Paths.get(TestClassA.class.getProtectionDomain()
+				.getCodeSource().getLocation().toURI());
+		File jarFile = folder.newFile("b.jar");
+		int count = new ModuleJarWriter(Collections.singletonList(classes))
+				.write(project.getModule(TestModuleB.class.getName()),
+						jarFile.toPath());
+
+		List<String> names = getClassEntries(jarFile);
+		Assert.assertEquals(2, names.size());
+		Assert.assertTrue(names.contains("org/jabsaw/impl/TestClassB.class"));
+		Assert.assertTrue(names.contains("org/jabsaw/impl/TestModuleB.class"));
+		Assert.assertTrue(count >= names.size());
+	}
+
+	private List<String> getClassEntries(File file) throws IOException {
+		List<String> result = new ArrayList<>();
+		try (JarFile jar = new JarFile(file)) {
+			for (JarEntry entry : Collections.list(jar.entries())) {
+				if (entry.getName().endsWith(".class")) {
+					result.add(entry.getName());
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,47 @@
+package org.jabsaw.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ReachabilityAnalysisTest {
+
+	@Test
+	public void test() throws IOException {
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		ClassModel classB = project.getClassModel(TestClassB.class.getName());
+		Assert.assertTrue(classB.getClassFileSize() > 0);
+
+		ReachabilityAnalysis.Result result = new ReachabilityAnalysis(project)
+				.analyze(Arrays.asList("**.TestClassA"));
+		Assert.assertEquals(1, result.getEntryClasses().size());
+		Assert.assertEquals(2, result.getUnreachableClasses().size());
+		Assert.assertFalse(result.getUnreachableClasses().contains(classB));
+		Assert.assertEquals(4, result.getTotal().getClassCount());
+
+		ModuleModel moduleB = project.getModule(TestModuleB.class.getName());
+		Assert.assertEquals(1, result.getModuleStatistics().get(moduleB)
+				.getUnreachableClassCount());
+		Assert.assertEquals(project.getClassModel(TestModuleB.class.getName())
+				.getClassFileSize(), result.getModuleStatistics().get(moduleB)
+				.getUnreachableClassFileBytes());
+
+		result = new ReachabilityAnalysis(project).analyze(Arrays
+				.asList(TestModuleA.class.getName()));
+		Assert.assertEquals(2, result.getEntryClasses().size());
+		Assert.assertEquals(1, result.getUnreachableClasses().size());
+	}
+}
@@ -0,0 +1,149 @@
+package org.jabsaw.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+public class SummaryLinkerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] summary;
+
+	@Before
+	public void setup() throws IOException {
+		// the summary of an artifact containing module B and a class which is
+		// not part of any module
+		ClassParser parser = new ClassParser();
+		parser.parse(new ClassReader(TestClassB.class.getName()));
+		parser.parse(new ClassReader(TestModuleB.class.getName()));
+		parser.parse(new ClassReader(ClassNestingTestClass.class.getName()));
+		parser.getProject().resolveDependencies();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelIndex.write(parser.getProject(), out);
+		summary = out.toByteArray();
+	}
+
+	private ClassParser parseLocalClasses(ClassParser parser)
+			throws IOException {
+		parser.parse(new ClassReader(TestClassA.class.getName()));
+		parser.parse(new ClassReader(TestModuleA.class.getName()));
+		parser.getProject().resolveDependencies();
+		return parser;
+	}
+
+	@Test
+	public void link() throws IOException {
+		ClassParser parser = new ClassParser();
+		ProjectModel project = parser.getProject();
+		new SummaryLinker(project).link(new ByteArrayInputStream(summary));
+		parseLocalClasses(parser);
+
+		ClassModel classA = project.getClassModel(TestClassA.class.getName());
+		ClassModel classB = project.getClassModel(TestClassB.class.getName());
+		Assert.assertFalse(classA.isLinked());
+		Assert.assertTrue(classB.isLinked());
+		Assert.assertTrue(classA.getUsesClasses().contains(classB));
+
+		ModuleModel moduleA = project.getModule(TestModuleA.class.getName());
+		ModuleModel moduleB = project.getModule(TestModuleB.class.getName());
+		Assert.assertFalse(moduleA.isLinked());
+		Assert.assertTrue(moduleB.isLinked());
+		Assert.assertTrue(moduleA.getExportedModules().contains(moduleB));
+		Assert.assertSame(moduleB, classB.getModule());
+
+		// only the information required to resolve modules is linked
+		Assert.assertEquals(0, classB.getOwnAbiFingerprint());
+		Assert.assertEquals(0,
+				project.getClassModel(TestModuleB.class.getName())
+						.getAnnotations().size());
+
+		// the linked class outside of a module is not reported
+		ArrayList<String> errors = new ArrayList<>();
+		project.checkAllClassesInModule(errors);
+		project.checkClassAccessibility(errors);
+		Assert.assertEquals(new ArrayList<String>(), errors);
+
+		// only the local classes are written to the index of the project
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelIndex.write(project, out);
+		ProjectModel read = new ProjectModel();
+		ModelIndex.read(new ByteArrayInputStream(out.toByteArray()), read);
+		Assert.assertEquals(2, read.getClasses().size());
+		Assert.assertNotNull(read.getClassModel(TestClassA.class.getName()));
+		Assert.assertNull(read.getClassModel(TestClassB.class.getName()));
+		Assert.assertEquals(1, read.getModules().size());
+	}
+
+	@Test
+	public void linkArtifacts() throws IOException {
+		Path jar = folder.getRoot().toPath().resolve("b.jar");
+		try (OutputStream out = Files.newOutputStream(jar);
+				ZipOutputStream zip = new ZipOutputStream(out)) {
+			zip.putNextEntry(new ZipEntry(ModelIndex.RESOURCE_NAME));
+			zip.write(summary);
+			zip.closeEntry();
+		}
+		Path emptyDir = folder.newFolder("classes").toPath();
+
+		ClassParser parser = new ClassParser();
+		SummaryLinker linker = new SummaryLinker(parser.getProject());
+		Assert.assertTrue(linker.link(jar));
+		Assert.assertFalse(linker.link(emptyDir));
+		parseLocalClasses(parser);
+
+		Assert.assertEquals(1, linker.getLinkedArtifacts().size());
+		Assert.assertEquals(emptyDir, linker.getArtifactsWithoutSummary()
+				.get(0));
+		Assert.assertTrue(parser.getProject()
+				.getClassModel(TestClassB.class.getName()).isLinked());
+	}
+
+	@Test
+	public void skipFilesWithoutSummary() throws IOException {
+		Path root = folder.getRoot().toPath();
+		Path library = root.resolve("libnative.so");
+		Files.write(library, new byte[] { 0x7f, 'E', 'L', 'F', 2, 1, 1, 0 });
+		Path pom = root.resolve("b.pom");
+		Files.write(pom, "<project/>".getBytes(StandardCharsets.UTF_8));
+		Path empty = root.resolve("empty");
+		Files.write(empty, new byte[0]);
+
+		// a summary written by a different version of the index format
+		Path oldSummary = root.resolve("old-summary");
+		byte[] bytes = summary.clone();
+		bytes[7]--;
+		Files.write(oldSummary, bytes);
+
+		SummaryLinker linker = new SummaryLinker(new ProjectModel());
+		for (Path file : Arrays.asList(library, pom, empty, oldSummary)) {
+			Assert.assertFalse(linker.link(file));
+		}
+		Assert.assertEquals(0, linker.getLinkedArtifacts().size());
+		Assert.assertEquals(4, linker.getArtifactsWithoutSummary().size());
+
+		Path summaryFile = root.resolve("summary");
+		Files.write(summaryFile, summary);
+		Assert.assertTrue(linker.link(summaryFile));
+	}
+}
@@ -0,0 +1,9 @@
+package org.jabsaw.impl;
+
+import org.jabsaw.Module;
+
+@Module(imported = TestMemberModuleB.class, includePackage = false, include = {
+		TestMemberModuleA.class, TestMemberUser.class })
+public class TestMemberModuleA {
+
+}
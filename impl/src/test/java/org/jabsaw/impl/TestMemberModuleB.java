@@ -0,0 +1,9 @@
+package org.jabsaw.impl;
+
+import org.jabsaw.Module;
+
+@Module(includePackage = false, include = { TestMemberModuleB.class,
+		TestMemberOwner.class })
+public class TestMemberModuleB {
+
+}
@@ -0,0 +1,7 @@
+package org.jabsaw.impl;
+
+public class TestMemberOwner {
+
+	public void foo() {
+	}
+}
@@ -0,0 +1,10 @@
+package org.jabsaw.impl;
+
+public class TestMemberUser {
+
+	public TestMemberOwner owner;
+
+	public void useOwner() {
+		owner.foo();
+	}
+}
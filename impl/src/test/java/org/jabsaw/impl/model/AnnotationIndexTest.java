@@ -0,0 +1,72 @@
+package org.jabsaw.impl.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.AnnotatedElement.Kind;
+import org.jabsaw.impl.model.AnnotationIndexTestClasses.AnnotatedClass;
+import org.jabsaw.impl.model.AnnotationIndexTestClasses.Marker;
+import org.jabsaw.impl.model.AnnotationIndexTestClasses.PlainClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class AnnotationIndexTest {
+
+	private ProjectModel parse() throws IOException {
+		ClassParser parser = new ClassParser();
+		for (Class<?> clazz : new Class<?>[] {
+				AnnotationIndexTestClasses.class, Marker.class,
+				AnnotatedClass.class, PlainClass.class }) {
+			parser.parse(new ClassReader(clazz.getName()));
+		}
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+		return project;
+	}
+
+	private void check(ProjectModel project) {
+		AnnotationIndex index = project.getAnnotationIndex();
+		List<AnnotatedElement> elements = index
+				.getAnnotatedElements(Marker.class.getName());
+		Assert.assertEquals(4, elements.size());
+
+		int parameters = 0;
+		for (AnnotatedElement element : elements) {
+			Assert.assertEquals(AnnotatedClass.class.getName(), element
+					.getClassModel().getQualifiedName());
+			if (element.getKind() == Kind.PARAMETER) {
+				parameters++;
+				Assert.assertEquals("method", element.getMemberName());
+				Assert.assertEquals("(ILjava/lang/String;)V",
+						element.getMemberDescriptor());
+				Assert.assertEquals(1, element.getParameter());
+			}
+		}
+		Assert.assertEquals(1, parameters);
+
+		Assert.assertEquals(1,
+				index.getAnnotatedClasses(Marker.class.getName()).size());
+		Assert.assertTrue(index.getAnnotatedClasses("not.Existing").isEmpty());
+	}
+
+	@Test
+	public void test() throws IOException {
+		check(parse());
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelIndex.write(parse(), out);
+
+		ProjectModel read = new ProjectModel();
+		ModelIndex.read(new ByteArrayInputStream(out.toByteArray()), read);
+		read.resolveDependencies();
+		check(read);
+	}
+}
@@ -0,0 +1,24 @@
+package org.jabsaw.impl.model;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+class AnnotationIndexTestClasses {
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Marker {
+	}
+
+	@Marker
+	static class AnnotatedClass {
+		@Marker
+		int field;
+
+		@Marker
+		void method(int a, @Marker String b) {
+		}
+	}
+
+	static class PlainClass {
+	}
+}
@@ -0,0 +1,57 @@
+package org.jabsaw.impl.model;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.model.ClassHierarchyTestClasses.AbstractPlugin;
+import org.jabsaw.impl.model.ClassHierarchyTestClasses.Plugin;
+import org.jabsaw.impl.model.ClassHierarchyTestClasses.PluginA;
+import org.jabsaw.impl.model.ClassHierarchyTestClasses.PluginB;
+import org.jabsaw.impl.model.ClassHierarchyTestClasses.SubPlugin;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+public class ClassHierarchyTest {
+
+	private Set<String> names(Set<ClassModel> classes) {
+		Set<String> result = new HashSet<>();
+		for (ClassModel clazz : classes) {
+			result.add(clazz.getQualifiedName());
+		}
+		return result;
+	}
+
+	@Test
+	public void test() throws IOException {
+		ClassParser parser = new ClassParser();
+		for (Class<?> clazz : new Class<?>[] {
+				ClassHierarchyTestClasses.class, Plugin.class,
+				SubPlugin.class, AbstractPlugin.class, PluginA.class,
+				PluginB.class }) {
+			parser.parse(new ClassReader(clazz.getName()));
+		}
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		ClassHierarchy hierarchy = project.getClassHierarchy();
+		Assert.assertTrue(hierarchy.getClass(SubPlugin.class.getName())
+				.isInterface());
+		Assert.assertTrue(hierarchy.getClass(AbstractPlugin.class.getName())
+				.isAbstract());
+		Assert.assertEquals(AbstractPlugin.class.getName(), hierarchy
+				.getClass(PluginA.class.getName()).superClassName);
+
+		Assert.assertEquals(4,
+				hierarchy.getSubtypes(Plugin.class.getName()).size());
+		Set<String> expected = new HashSet<>();
+		expected.add(PluginA.class.getName());
+		expected.add(PluginB.class.getName());
+		Assert.assertEquals(expected,
+				names(hierarchy.getImplementations(Plugin.class.getName())));
+		Assert.assertEquals(1,
+				hierarchy.getDirectSubtypes(SubPlugin.class.getName()).size());
+	}
+}
@@ -0,0 +1,19 @@
+package org.jabsaw.impl.model;
+
+class ClassHierarchyTestClasses {
+
+	interface Plugin {
+	}
+
+	interface SubPlugin extends Plugin {
+	}
+
+	static abstract class AbstractPlugin implements Plugin {
+	}
+
+	static class PluginA extends AbstractPlugin {
+	}
+
+	static class PluginB implements SubPlugin {
+	}
+}
@@ -0,0 +1,33 @@
+package org.jabsaw.impl.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DependencyKindTest {
+
+	@Test
+	public void parse() {
+		assertEquals(DependencyKind.ALL, DependencyKind.parse("all"));
+		assertEquals(DependencyKind.API, DependencyKind.parse("api"));
+		assertEquals(DependencyKind.INHERITANCE | DependencyKind.METHOD_BODY,
+				DependencyKind.parse(" inheritance, ,methodBody"));
+		assertEquals("inheritance,methodBody", DependencyKind
+				.toString(DependencyKind.parse("methodBody,inheritance")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseUnknown() {
+		DependencyKind.parse("inheritance,bodies");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseEmpty() {
+		DependencyKind.parse("");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseEmptyItems() {
+		DependencyKind.parse(" , ,");
+	}
+}
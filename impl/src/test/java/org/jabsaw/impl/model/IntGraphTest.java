@@ -0,0 +1,82 @@
+package org.jabsaw.impl.model;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+public class IntGraphTest {
+
+	@Test
+	public void testShortestPath() {
+		// 0->1->2->3->4, shortcut 1->4, 5 isolated
+		IntGraph graph = new IntGraph(6, new int[] { 0, 1, 2, 3, 1 },
+				new int[] { 1, 2, 3, 4, 4 }, 5);
+
+		assertArrayEquals(new int[] { 0, 1, 4 }, graph.shortestPath(0, 4));
+		assertArrayEquals(new int[] { 1, 2, 3 }, graph.shortestPath(1, 3));
+		assertArrayEquals(new int[] { 2 }, graph.shortestPath(2, 2));
+		assertNull(graph.shortestPath(4, 0));
+		assertNull(graph.shortestPath(0, 5));
+	}
+
+	@Test
+	public void testAdjacency() {
+		IntGraph graph = new IntGraph(3, new int[] { 0, 0, 2 }, new int[] {
+				1, 2, 1 }, 3);
+		assertEquals(3, graph.getEdgeCount());
+		assertArrayEquals(new int[] { 1, 2 }, graph.getSuccessors(0));
+		assertArrayEquals(new int[] { 0, 2 }, graph.getPredecessors(1));
+		assertArrayEquals(new int[] {}, graph.getSuccessors(1));
+	}
+
+	@Test
+	public void testKinds() {
+		// 0->1 (inheritance), 1->2 (method body), 0->2 (both)
+		int both = DependencyKind.INHERITANCE | DependencyKind.METHOD_BODY;
+		IntGraph graph = new IntGraph(3, new int[] { 0, 1, 0 }, new int[] {
+				1, 2, 2 }, new int[] { DependencyKind.INHERITANCE,
+				DependencyKind.METHOD_BODY, both }, 3);
+		assertArrayEquals(new int[] { DependencyKind.INHERITANCE, both },
+				graph.getSuccessorKinds(0));
+		assertEquals(DependencyKind.METHOD_BODY, graph.getEdgeKinds(1, 2));
+		assertEquals(0, graph.getEdgeKinds(2, 1));
+
+		BitSet start = new BitSet();
+		start.set(1);
+		assertEquals(1, graph.reachable(start, false,
+				DependencyKind.INHERITANCE).cardinality());
+		assertEquals(2, graph.reachable(start, false, DependencyKind.ALL)
+				.cardinality());
+
+		IntGraph inheritance = graph.filter(DependencyKind.INHERITANCE);
+		assertEquals(2, inheritance.getEdgeCount());
+		assertArrayEquals(new int[] {}, inheritance.getSuccessors(1));
+	}
+
+	@Test
+	public void testSuccessorsFirstOrder() {
+		// 0->1, 1<->2 (cycle), 2->3, 4 isolated
+		IntGraph graph = new IntGraph(5, new int[] { 0, 1, 2, 2 }, new int[] {
+				1, 2, 1, 3 }, 4);
+
+		int[] components = graph.getComponents();
+		assertEquals(components[1], components[2]);
+		assertTrue(components[3] < components[1]);
+		assertTrue(components[1] < components[0]);
+
+		int[] order = graph.getSuccessorsFirstOrder();
+		assertEquals(5, order.length);
+		int[] position = new int[5];
+		for (int i = 0; i < order.length; i++) {
+			position[order[i]] = i;
+		}
+		assertTrue(position[3] < position[1]);
+		assertTrue(position[3] < position[2]);
+		assertTrue(position[1] < position[0]);
+		assertTrue(position[2] < position[0]);
+
+		assertArrayEquals(new int[] { 2, 1, 1, 0, 0 }, graph.getLevels());
+	}
+}
@@ -0,0 +1,88 @@
+package org.jabsaw.impl.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.jabsaw.impl.pattern.ClassPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModelDiffTest {
+
+	private ProjectModel createProject(boolean current) {
+		ProjectModel project = new ProjectModel();
+		ModuleModel foo = new ModuleModel(project, "foo");
+		foo.addInclusionPattern(new ClassPattern("", "foo.*"));
+		ModuleModel bar = new ModuleModel(project, "bar");
+		bar.addInclusionPattern(new ClassPattern("", "bar.*"));
+		foo.addImportedModuleName("bar");
+
+		ClassModel a = new ClassModel(project, "foo.A");
+		new ClassModel(project, "bar.B");
+		if (current) {
+			new ClassModel(project, "bar.C");
+			ClassModel d = new ClassModel(project, "bar.D");
+			d.addUsesClassName("foo.A");
+		} else {
+			new ClassModel(project, "foo.C");
+			new ClassModel(project, "foo.D");
+			a.addUsesClassName("bar.B");
+		}
+		project.resolveDependencies();
+		return project;
+	}
+
+	@Test
+	public void testCompare() throws IOException {
+		ModelSnapshot baseline = ModelSnapshot.of(createProject(false));
+
+		// round trip the baseline
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		baseline.write(out);
+		baseline = ModelSnapshot.read(new ByteArrayInputStream(
+				out.toByteArray()));
+		Assert.assertEquals(4, baseline.getClassCount());
+		Assert.assertEquals(1, baseline.getClassEdgeCount());
+
+		ModelDiff diff = ModelDiff.compare(baseline,
+				ModelSnapshot.of(createProject(true)));
+
+		Assert.assertEquals("[bar.C, bar.D]", diff.getAddedClasses()
+				.toString());
+		Assert.assertEquals("[foo.C, foo.D]", diff.getRemovedClasses()
+				.toString());
+		Assert.assertTrue(diff.getMovedClasses().isEmpty());
+		Assert.assertEquals("[bar.D -> foo.A]", diff.getAddedClassEdges()
+				.toString());
+		Assert.assertEquals("[foo.A -> bar.B]", diff.getRemovedClassEdges()
+				.toString());
+		Assert.assertEquals("[bar -> foo]", diff.getAddedModuleEdges()
+				.toString());
+		Assert.assertTrue(diff.getRemovedModuleEdges().isEmpty());
+
+		Assert.assertTrue(ModelDiff.compare(baseline, baseline).isEmpty());
+	}
+
+	@Test
+	public void testMovedClass() {
+		ProjectModel baseline = new ProjectModel();
+		new ModuleModel(baseline, "foo").addInclusionPattern(new ClassPattern(
+				"", "a.*"));
+		new ClassModel(baseline, "a.A");
+		baseline.resolveDependencies();
+
+		ProjectModel current = new ProjectModel();
+		new ModuleModel(current, "bar").addInclusionPattern(new ClassPattern(
+				"", "a.*"));
+		new ClassModel(current, "a.A");
+		current.resolveDependencies();
+
+		ModelDiff diff = ModelDiff.compare(ModelSnapshot.of(baseline),
+				ModelSnapshot.of(current));
+		Assert.assertEquals("[a.A: foo -> bar]", diff.getMovedClasses()
+				.toString());
+		Assert.assertEquals("[bar]", diff.getAddedModules().toString());
+		Assert.assertEquals("[foo]", diff.getRemovedModules().toString());
+	}
+}
@@ -0,0 +1,54 @@
+package org.jabsaw.impl.model;
+
+import org.jabsaw.impl.pattern.ClassPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackageModuleTableTest {
+
+	@Test
+	public void test() {
+		ProjectModel project = new ProjectModel();
+		ModuleModel m1 = new ModuleModel(project, "a.M1");
+		ModuleModel m2 = new ModuleModel(project, "c.M2");
+		new ClassModel(project, "a.A1").setModule(m1);
+		new ClassModel(project, "a.A2").setModule(m1);
+		new ClassModel(project, "b.B1");
+		new ClassModel(project, "c.C1").setModule(m1);
+		new ClassModel(project, "c.C2").setModule(m2);
+		m2.addInclusionPattern(new ClassPattern("c", "e.*"));
+		project.dependenciesResolved = true;
+
+		PackageModuleTable table = project.getPackageModuleTable();
+		Assert.assertSame(m1, table.getModule("a.A1"));
+		Assert.assertSame(m1, table.getModule("a.Generated$Proxy"));
+		Assert.assertNull(table.getModule("b.B1"));
+		Assert.assertNull(table.getModule("d.Unknown"));
+		Assert.assertSame(m2, table.getModule("e.Generated"));
+		Assert.assertSame(m2, table.getModule("e.Generated"));
+
+		Assert.assertTrue(table.isMixedPackage("c"));
+		Assert.assertSame(m1, table.getModule("c.C1"));
+		Assert.assertSame(m2, table.getModule("c.C2$Inner"));
+
+		// classes of mixed packages are resolved once
+		int resolved = table.getResolvedClassCount();
+		Assert.assertSame(m2, table.getModule("c.C2$Inner"));
+		Assert.assertEquals(resolved, table.getResolvedClassCount());
+	}
+
+	@Test
+	public void resolvedClassesAreBounded() {
+		ProjectModel project = new ProjectModel();
+		ModuleModel m = new ModuleModel(project, "a.M");
+		m.addInclusionPattern(new ClassPattern("a", "e.*"));
+		project.dependenciesResolved = true;
+
+		PackageModuleTable table = project.getPackageModuleTable();
+		for (int i = 0; i < 2 * PackageModuleTable.MAX_RESOLVED_CLASSES; i++) {
+			Assert.assertSame(m, table.getModule("e.Generated$$Lambda$" + i));
+			Assert.assertTrue(table.getResolvedClassCount()
+					<= PackageModuleTable.MAX_RESOLVED_CLASSES);
+		}
+	}
+}
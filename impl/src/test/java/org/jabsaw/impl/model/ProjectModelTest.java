@@ -1,6 +1,9 @@
 package org.jabsaw.impl.model;
 
 import java.util.ArrayList;
+import java.util.List;
+
+import org.jabsaw.impl.pattern.ClassPattern;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -135,4 +138,108 @@ public class ProjectModelTest {
 		Assert.assertNotNull(project.getClassModel("c"));
 		Assert.assertNull(project.getClassModel("d"));
 	}
+
+	@Test
+	public void reverseDependencies() {
+		ProjectModel project = new ProjectModel();
+
+		ClassModel a = new ClassModel(project, "a");
+		ClassModel b = new ClassModel(project, "b");
+		ClassModel c = new ClassModel(project, "c");
+		ClassModel d = new ClassModel(project, "d");
+
+		d.outerClassName = "c";
+		a.addUsesClassName("b");
+		d.addUsesClassName("b");
+
+		ModuleModel foo = new ModuleModel(project, "foo");
+		ModuleModel bar = new ModuleModel(project, "bar");
+		ModuleModel baz = new ModuleModel(project, "baz");
+		foo.addImportedModuleName("bar");
+		bar.addExportedModuleName("baz");
+
+		project.resolveDependencies();
+
+		Assert.assertEquals(2, b.getUsedByClasses().size());
+		Assert.assertTrue(b.getUsedByClasses().contains(a));
+		Assert.assertTrue(b.getUsedByClasses().contains(c));
+		Assert.assertTrue(project.getUsingClasses("a").isEmpty());
+		Assert.assertTrue(project.getUsingClasses("x").isEmpty());
+
+		Assert.assertEquals(1, baz.getReferencingModules().size());
+		Assert.assertTrue(baz.getReferencingModules().contains(bar));
+		Assert.assertEquals(3, project.getDependentModules("baz").size());
+		Assert.assertTrue(baz.getAllDependentModules().contains(foo));
+		Assert.assertEquals(1, foo.getAllDependentModules().size());
+	}
+
+	@Test
+	public void checkClassAccessibilityByKind() {
+		ProjectModel project = new ProjectModel();
+
+		ModuleModel foo = new ModuleModel(project, "foo");
+		ModuleModel baz = new ModuleModel(project, "baz");
+		foo.addInclusionPattern(new ClassPattern("", "foo.*"));
+		baz.addInclusionPattern(new ClassPattern("", "baz.*"));
+
+		ClassModel a = new ClassModel(project, "foo.A");
+		ClassModel inner = new ClassModel(project, "foo.A$1");
+		ClassModel b = new ClassModel(project, "baz.B");
+		ClassModel c = new ClassModel(project, "baz.C");
+		inner.outerClassName = "foo.A";
+		a.addUsesClassName("baz.B", DependencyKind.METHOD_BODY);
+		inner.addUsesClassName("baz.C", DependencyKind.INHERITANCE);
+		inner.addUsesClassName("baz.B", DependencyKind.SIGNATURE);
+
+		project.resolveDependencies();
+
+		Assert.assertEquals(DependencyKind.METHOD_BODY
+				| DependencyKind.SIGNATURE, a.getDependencyKinds(b));
+		Assert.assertEquals(DependencyKind.INHERITANCE, a.getDependencyKinds(c));
+
+		List<String> errors = new ArrayList<>();
+		project.checkClassAccessibility(errors);
+		Assert.assertEquals(2, errors.size());
+
+		errors.clear();
+		project.checkClassAccessibility(errors, DependencyKind.INHERITANCE);
+		Assert.assertEquals(1, errors.size());
+		Assert.assertTrue(errors.get(0).contains("baz.C"));
+
+		errors.clear();
+		project.checkClassAccessibility(errors, DependencyKind.ANNOTATION);
+		Assert.assertTrue(errors.isEmpty());
+	}
+
+	@Test
+	public void explainModuleDependency() {
+		ProjectModel project = new ProjectModel();
+
+		ModuleModel foo = new ModuleModel(project, "foo");
+		ModuleModel bar = new ModuleModel(project, "bar");
+		ModuleModel baz = new ModuleModel(project, "baz");
+		foo.addImportedModuleName("bar");
+		foo.addInclusionPattern(new ClassPattern("", "foo.*"));
+		baz.addInclusionPattern(new ClassPattern("", "baz.*"));
+		bar.addExportedModuleName("baz");
+
+		ClassModel a = new ClassModel(project, "foo.A");
+		new ClassModel(project, "baz.B");
+		a.addUsesClassName("baz.B");
+
+		project.resolveDependencies();
+
+		List<ModuleEdge> path = project.explainModuleDependency(foo, baz);
+		Assert.assertEquals(1, path.size());
+		Assert.assertFalse(path.get(0).isImport());
+		Assert.assertEquals(1, path.get(0).getClassEdges().size());
+		Assert.assertEquals(a, path.get(0).getClassEdges().iterator().next()
+				.getFrom());
+
+		path = project.explainModuleDependency(bar, baz);
+		Assert.assertEquals(1, path.size());
+		Assert.assertTrue(path.get(0).isExport());
+
+		Assert.assertTrue(project.explainModuleDependency(baz, foo).isEmpty());
+	}
 }
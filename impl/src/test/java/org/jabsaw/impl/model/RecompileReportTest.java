@@ -0,0 +1,74 @@
+package org.jabsaw.impl.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.jabsaw.impl.pattern.ClassPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecompileReportTest {
+
+	/**
+	 * top imports mid, mid imports base, other is independent
+	 */
+	private ModelSnapshot createSnapshot(long baseFingerprint)
+			throws IOException {
+		ProjectModel project = new ProjectModel();
+		for (String name : new String[] { "base", "mid", "top", "other" }) {
+			new ModuleModel(project, name).addInclusionPattern(new ClassPattern(
+					"", name + ".*"));
+			new ClassModel(project, name + ".A").setAbiFingerprint(1);
+		}
+		project.getClassModel("base.A").setAbiFingerprint(baseFingerprint);
+		project.getModule("top").addImportedModuleName("mid");
+		project.getModule("mid").addImportedModuleName("base");
+		project.resolveDependencies();
+
+		// round trip the snapshot
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ModelSnapshot.of(project).write(out);
+		return ModelSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	@Test
+	public void test() throws IOException {
+		ModelSnapshot baseline = createSnapshot(1);
+
+		RecompileReport report = RecompileReport.compare(baseline,
+				createSnapshot(2));
+		Assert.assertEquals("[base]", report.getChangedModules().toString());
+		Assert.assertEquals("[mid, top]", report.getDownstreamModules()
+				.toString());
+		Assert.assertEquals("[base.A]", report.getChangedClasses().toString());
+		Assert.assertEquals("[base, mid, top]", report
+				.getModulesToRecompile().toString());
+
+		report = RecompileReport.compare(baseline, createSnapshot(1));
+		Assert.assertTrue(report.getModulesToRecompile().isEmpty());
+		Assert.assertTrue(report.getChangedClasses().isEmpty());
+	}
+
+	@Test
+	public void removedModule() throws IOException {
+		ModelSnapshot baseline = createSnapshot(1);
+
+		// remove the base module, mid no longer imports it
+		ProjectModel project = new ProjectModel();
+		for (String name : new String[] { "mid", "top", "other" }) {
+			new ModuleModel(project, name).addInclusionPattern(new ClassPattern(
+					"", name + ".*"));
+			new ClassModel(project, name + ".A").setAbiFingerprint(1);
+		}
+		project.getModule("top").addImportedModuleName("mid");
+		project.resolveDependencies();
+
+		RecompileReport report = RecompileReport.compare(baseline,
+				ModelSnapshot.of(project));
+		Assert.assertEquals("[base]", report.getRemovedModules().toString());
+		Assert.assertTrue(report.getChangedModules().isEmpty());
+		Assert.assertEquals("[mid, top]", report.getModulesToRecompile()
+				.toString());
+	}
+}
@@ -0,0 +1,106 @@
+package org.jabsaw.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.ClassParser.DirectoryParsingCallback;
+import org.jabsaw.impl.SummaryLinker;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Base class of the Mojos working with the modules of the project.
+ */
+public abstract class AbstractModulesMojo extends AbstractMojo {
+
+	@Parameter(defaultValue = "${project.build.outputDirectory}", required = true, readonly = true)
+	protected File outputDirectory;
+
+	@Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
+	protected File targetDirectory;
+
+	/**
+	 * If true, modules are typically identified in strings by their name
+	 * instead of the fully qualified name of the representing class. Default:
+	 * false
+	 */
+	@Parameter(defaultValue = "false", required = true)
+	protected boolean useModuleNames;
+
+	/**
+	 * Parse the classes in the output directory and resolve the dependencies.
+	 * Parsing errors are added to the given error list.
+	 */
+	protected ProjectModel parseProject(final ArrayList<String> errors)
+			throws MojoExecutionException {
+		final ClassParser parser = new ClassParser();
+		ProjectModel project = parser.getProject();
+		project.setUseModuleNames(useModuleNames);
+
+		List<String> summaryElements = getSummaryClasspathElements();
+		if (!summaryElements.isEmpty()) {
+			linkDependencySummaries(project, summaryElements);
+		}
+
+		parser.parseDirectory(errors, outputDirectory.toPath(),
+				new DirectoryParsingCallback() {
+
+					@Override
+					public void parsingFile(Path file) {
+						getLog().debug("parsing " + file.toString());
+					}
+
+					@Override
+					public void error(String error) {
+						errors.add(error);
+					}
+				});
+
+		project.resolveDependencies();
+
+		getLog().debug("Project Details:\n" + project.details());
+		return project;
+	}
+
+	/**
+	 * Return the class path elements whose summaries are linked into the
+	 * model. None by default, since resolving the dependencies is only
+	 * required for linking.
+	 */
+	protected List<String> getSummaryClasspathElements() {
+		return Collections.emptyList();
+	}
+
+	private void linkDependencySummaries(ProjectModel project,
+			List<String> summaryElements) throws MojoExecutionException {
+		SummaryLinker linker = new SummaryLinker(project);
+		for (String element : summaryElements) {
+			Path artifact = Paths.get(element);
+			if (artifact.equals(outputDirectory.toPath())
+					|| !Files.exists(artifact)) {
+				continue;
+			}
+			try {
+				linker.link(artifact);
+			} catch (IOException e) {
+				throw new MojoExecutionException(
+						"Error while linking the summary of " + artifact, e);
+			}
+		}
+		getLog().info(
+				"Linked " + linker.getLinkedArtifacts().size()
+						+ " dependency summaries");
+		for (Path artifact : linker.getArtifactsWithoutSummary()) {
+			getLog().debug("No summary found in " + artifact);
+		}
+	}
+}
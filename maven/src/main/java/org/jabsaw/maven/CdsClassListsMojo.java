@@ -0,0 +1,53 @@
+package org.jabsaw.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jabsaw.impl.CdsClassListWriter;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Writes a Class Data Sharing class list (-XX:SharedClassListFile) per module,
+ * containing all classes required by the module in dependency order.
+ */
+@Mojo(name = "cds-class-lists", defaultPhase = LifecyclePhase.PROCESS_CLASSES)
+public class CdsClassListsMojo extends AbstractModulesMojo {
+
+	/**
+	 * Directory the class lists are written to. The files are named after the
+	 * module identification. Default: ${project.build.directory}/cds
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/cds", required = true)
+	private File classListDirectory;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		ArrayList<String> errors = new ArrayList<>();
+		getLog().info("Writing CDS class lists ...");
+		ProjectModel project = parseProject(errors);
+
+		if (!errors.isEmpty()) {
+			for (String s : errors) {
+				getLog().error(s);
+			}
+			throw new MojoFailureException(
+					"Error while parsing classes. See log for details");
+		}
+
+		try {
+			new CdsClassListWriter().writeAll(project,
+					classListDirectory.toPath());
+		} catch (IOException e) {
+			throw new MojoExecutionException(
+					"Error while writing CDS class lists", e);
+		}
+
+		getLog().info("CDS class lists written to " + classListDirectory);
+	}
+}
@@ -0,0 +1,27 @@
+package org.jabsaw.maven;
+
+import java.util.List;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * Same as the check goal, but links the summaries of the dependencies (the
+ * module indexes written by their writeModuleIndex parameter) into the model
+ * instead of parsing the dependencies. This makes modules of the dependencies
+ * available, for example for imports. Only the classes of the project itself
+ * are checked. A separate goal, since the dependencies have to be resolved.
+ */
+@Mojo(name = "check-linked", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE)
+public class CheckLinkedModulesMojo extends CheckModulesMojo {
+
+	@Parameter(defaultValue = "${project.compileClasspathElements}", required = true, readonly = true)
+	private List<String> classpathElements;
+
+	@Override
+	protected List<String> getSummaryClasspathElements() {
+		return classpathElements;
+	}
+}
@@ -1,32 +1,29 @@
 package org.jabsaw.maven;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.jabsaw.impl.ClassParser;
-import org.jabsaw.impl.ClassParser.DirectoryParsingCallback;
 import org.jabsaw.impl.GraphizPrinter;
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.DependencyKind;
 import org.jabsaw.impl.model.ProjectModel;
 
 /**
  * Checks if the constraints satisfied by the modules are respected.
  */
 @Mojo(name = "check", defaultPhase = LifecyclePhase.PROCESS_CLASSES)
-public class CheckModulesMojo extends AbstractMojo {
+public class CheckModulesMojo extends AbstractModulesMojo {
 
-	@Parameter(defaultValue = "${project.build.outputDirectory}", required = true, readonly = true)
-	private File outputDirectory;
-
-	@Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
-	private File targetDirectory;
 	/**
 	 * If true, the modules are checked for dependency cycles. Default: true.
 	 */
@@ -46,12 +43,12 @@ public class CheckModulesMojo extends AbstractMojo {
 	private boolean checkModuleBoundaries;
 
 	/**
-	 * If true, modules are typically identified in strings by their name
-	 * instead of the fully qualified name of the representing class. Default:
-	 * false
+	 * Comma separated list of the dependency kinds checked against the module
+	 * boundaries: inheritance, fieldType, signature, methodBody, annotation.
+	 * "api" stands for all kinds except methodBody. Default: all
 	 */
-	@Parameter(defaultValue = "false", required = true)
-	private boolean useModuleNames;
+	@Parameter(defaultValue = "all", required = true)
+	private String checkedDependencyKinds;
 
 	/**
 	 * If true, generate a module graph Graphviz file. Default: false
@@ -81,32 +78,21 @@ public class CheckModulesMojo extends AbstractMojo {
 	@Parameter(defaultValue = "", required = true)
 	private String moduleGraphFormat;
 
+	/**
+	 * If true, a binary index of the classes and modules is written to
+	 * META-INF/jabsaw/index.bin in the output directory. The index is picked
+	 * up by the Modules utility at runtime instead of parsing the classes.
+	 * Default: false
+	 */
+	@Parameter(defaultValue = "false", required = true)
+	private boolean writeModuleIndex;
+
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		final ArrayList<String> errors = new ArrayList<>();
 		getLog().info("Checking Modules ...");
 
-		final ClassParser parser = new ClassParser();
-		ProjectModel project = parser.getProject();
-		project.setUseModuleNames(useModuleNames);
-
-		parser.parseDirectory(errors, outputDirectory.toPath(),
-				new DirectoryParsingCallback() {
-
-					@Override
-					public void parsingFile(Path file) {
-						getLog().debug("parsing " + file.toString());
-					}
-
-					@Override
-					public void error(String error) {
-						errors.add(error);
-					}
-				});
-
-		project.resolveDependencies();
-
-		getLog().debug("Project Details:\n" + project.details());
+		ProjectModel project = parseProject(errors);
 
 		if (checkDepedencyCycles) {
 			getLog().info("Checking module dependencies for cycles ...");
@@ -120,7 +106,8 @@ public class CheckModulesMojo extends AbstractMojo {
 
 		if (checkModuleBoundaries) {
 			getLog().info("Checking class dependencies ...");
-			project.checkClassAccessibility(errors);
+			project.checkClassAccessibility(errors,
+					DependencyKind.parse(checkedDependencyKinds));
 		}
 
 		if (!targetDirectory.exists()) {
@@ -165,6 +152,22 @@ public class CheckModulesMojo extends AbstractMojo {
 					"Error while checking module dependencies. See log for details");
 		}
 
+		if (writeModuleIndex) {
+			Path indexFile = outputDirectory.toPath().resolve(
+					ModelIndex.RESOURCE_NAME);
+			getLog().info("Writing module index to " + indexFile);
+			try {
+				Files.createDirectories(indexFile.getParent());
+				try (OutputStream out = new BufferedOutputStream(
+						Files.newOutputStream(indexFile))) {
+					ModelIndex.write(project, out);
+				}
+			} catch (IOException e) {
+				throw new MojoExecutionException(
+						"Error while writing the module index", e);
+			}
+		}
+
 		getLog().info("Modules checked");
 	}
 
@@ -0,0 +1,77 @@
+package org.jabsaw.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jabsaw.impl.ModuleJarWriter;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+
+/**
+ * Writes a jar per module, containing only the classes required by the
+ * module and the resources in the packages of these classes.
+ */
+@Mojo(name = "module-jars", defaultPhase = LifecyclePhase.PACKAGE)
+public class ModuleJarsMojo extends AbstractModulesMojo {
+
+	/**
+	 * Directory the module jars are written to. The jars are named after the
+	 * module identification. Default: ${project.build.directory}/module-jars
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/module-jars", required = true)
+	private File moduleJarDirectory;
+
+	/**
+	 * Modules to write jars for, identified by name or by the fully qualified
+	 * name of the representing class. Default: all modules
+	 */
+	@Parameter
+	private List<String> modules = Collections.emptyList();
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		ArrayList<String> errors = new ArrayList<>();
+		getLog().info("Writing module jars ...");
+		ProjectModel project = parseProject(errors);
+
+		if (!errors.isEmpty()) {
+			for (String s : errors) {
+				getLog().error(s);
+			}
+			throw new MojoFailureException(
+					"Error while parsing classes. See log for details");
+		}
+
+		ModuleJarWriter writer = new ModuleJarWriter(
+				Collections.singletonList(outputDirectory.toPath()));
+		try {
+			if (modules.isEmpty()) {
+				writer.writeAll(project, moduleJarDirectory.toPath());
+			} else {
+				moduleJarDirectory.mkdirs();
+				for (String identification : modules) {
+					ModuleModel module = project.findModule(identification);
+					if (module == null) {
+						throw new MojoFailureException("Module "
+								+ identification + " not found");
+					}
+					writer.write(module, new File(moduleJarDirectory,
+							module.getIdentification() + ".jar").toPath());
+				}
+			}
+		} catch (IOException e) {
+			throw new MojoExecutionException("Error while writing module jars",
+					e);
+		}
+
+		getLog().info("Module jars written to " + moduleJarDirectory);
+	}
+}
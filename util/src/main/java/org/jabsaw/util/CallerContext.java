@@ -0,0 +1,136 @@
+package org.jabsaw.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Provides access to the classes on the call stack. The StackWalker API is
+ * used if available (Java 9 and later). On older versions, the class context
+ * of a {@link SecurityManager} is used, an API which is deprecated for
+ * removal on newer versions.
+ */
+abstract class CallerContext {
+
+	/**
+	 * Return the classes of the frames above the method calling this method,
+	 * starting with the calling method itself. Frames of the skipped class
+	 * are left out and do not count towards maxFrames.
+	 */
+	abstract Class<?>[] getCallers(Class<?> skipped, int maxFrames);
+
+	/**
+	 * Create the best context available on the running JVM
+	 */
+	static CallerContext create() {
+		try {
+			return new StackWalkerContext();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new SecurityManagerContext();
+		}
+	}
+
+	/**
+	 * Add a class to the result, unless it is skipped. Frames of the context
+	 * itself are always skipped.
+	 */
+	static void add(List<Class<?>> result, Class<?> clazz, Class<?> skipped) {
+		if (clazz != skipped && !CallerContext.class.isAssignableFrom(clazz)) {
+			result.add(clazz);
+		}
+	}
+
+	/**
+	 * Uses java.lang.StackWalker through reflection, since the code is
+	 * compiled for Java 7. The frames are only walked up to the requested
+	 * depth.
+	 */
+	static final class StackWalkerContext extends CallerContext {
+		private final Object walker;
+		private final Method walk;
+		private final Class<?> functionClass;
+		private final Method iterator;
+		private final Method getDeclaringClass;
+
+		StackWalkerContext() throws ReflectiveOperationException {
+			Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+			Class<?> optionClass = Class
+					.forName("java.lang.StackWalker$Option");
+			walker = walkerClass.getMethod("getInstance", optionClass).invoke(
+					null,
+					optionClass.getField("RETAIN_CLASS_REFERENCE").get(null));
+			functionClass = Class.forName("java.util.function.Function");
+			walk = walkerClass.getMethod("walk", functionClass);
+			iterator = Class.forName("java.util.stream.BaseStream").getMethod(
+					"iterator");
+			getDeclaringClass = Class.forName(
+					"java.lang.StackWalker$StackFrame").getMethod(
+					"getDeclaringClass");
+		}
+
+		@Override
+		Class<?>[] getCallers(final Class<?> skipped, final int maxFrames) {
+			// java.util.function.Function collecting the classes from the
+			// stream of stack frames
+			Object function = Proxy.newProxyInstance(
+					CallerContext.class.getClassLoader(),
+					new Class<?>[] { functionClass }, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method,
+								Object[] args) throws Throwable {
+							if (!"apply".equals(method.getName())) {
+								throw new UnsupportedOperationException(method
+										.getName());
+							}
+							List<Class<?>> result = new ArrayList<>();
+							Iterator<?> frames = (Iterator<?>) iterator
+									.invoke(args[0]);
+							while (result.size() < maxFrames
+									&& frames.hasNext()) {
+								add(result, (Class<?>) getDeclaringClass
+										.invoke(frames.next()), skipped);
+							}
+							return result.toArray(new Class<?>[result.size()]);
+						}
+					});
+			try {
+				return (Class<?>[]) walk.invoke(walker, function);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
+			} catch (InvocationTargetException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Fallback for Java 7 and 8
+	 */
+	static final class SecurityManagerContext extends CallerContext {
+
+		@SuppressWarnings({ "deprecation", "removal" })
+		private static final class ClassContext extends SecurityManager {
+			Class<?>[] get() {
+				return getClassContext();
+			}
+		}
+
+		private final ClassContext classContext = new ClassContext();
+
+		@Override
+		Class<?>[] getCallers(Class<?> skipped, int maxFrames) {
+			List<Class<?>> result = new ArrayList<>();
+			Class<?>[] classes = classContext.get();
+			for (int i = 0; i < classes.length && result.size() < maxFrames; i++) {
+				if (classes[i] != ClassContext.class) {
+					add(result, classes[i], skipped);
+				}
+			}
+			return result.toArray(new Class<?>[result.size()]);
+		}
+	}
+}
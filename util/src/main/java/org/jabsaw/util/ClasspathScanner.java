@@ -0,0 +1,253 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.ProjectModel;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ClassInfo;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+
+/**
+ * Builds the {@link ProjectModel} of the classes visible to a class loader.
+ * Class path entries containing a {@link ModelIndex} are read from the index,
+ * all other entries are scanned and their classes parsed. Each entry is read
+ * sequentially, while the classes are parsed in parallel.
+ */
+class ClasspathScanner {
+	private final static Logger logger = LoggerFactory
+			.getLogger(ClasspathScanner.class);
+
+	private final ClassLoader classLoader;
+	private final ModulesConfig config;
+
+	/**
+	 * Roots of the class path entries read from an index, see
+	 * {@link #getRoot(URL, String)}
+	 */
+	private final Set<String> indexedRoots = new HashSet<>();
+
+	public ClasspathScanner(ClassLoader classLoader, ModulesConfig config) {
+		this.classLoader = classLoader;
+		this.config = config;
+	}
+
+	/**
+	 * Scan the class path and return the resolved project
+	 */
+	public ProjectModel scan() throws IOException {
+		ClassParser parser = new ClassParser();
+		ProjectModel project = parser.getProject();
+		project.setUseModuleNames(config.useModuleNames);
+
+		readIndexes(project);
+
+		// group the classes by class path entry
+		Map<String, Set<String>> resourcesByRoot = new LinkedHashMap<>();
+		for (ClassInfo info : getClassesToParse()) {
+			String root = getRoot(info.url(), info.getResourceName());
+			Set<String> resources = resourcesByRoot.get(root);
+			if (resources == null) {
+				resources = new HashSet<>();
+				resourcesByRoot.put(root, resources);
+			}
+			resources.add(info.getResourceName());
+		}
+
+		// read the entries sequentially, parse in parallel. The queue is
+		// bounded to limit the number of class files held in memory
+		int threads = Runtime.getRuntime().availableProcessors();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+				0, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+						threads * 16), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "jabsaw-parser");
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		try {
+			for (Entry<String, Set<String>> entry : resourcesByRoot.entrySet()) {
+				readEntry(entry.getKey(), entry.getValue(), parser, executor);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while parsing classes", e);
+		}
+
+		project.resolveDependencies();
+		return project;
+	}
+
+	/**
+	 * Read the given class files of a class path entry. Jar files are read
+	 * sequentially through a single {@link ZipFile}, directories directly
+	 * from the file system. The class files are parsed by the executor.
+	 */
+	private void readEntry(String root, Set<String> resourceNames,
+			final ClassParser parser, Executor executor) {
+		logger.trace("reading " + root);
+		try {
+			if (root.startsWith("jar:file:") && root.endsWith("!/")) {
+				Path jarFile = Paths.get(new URI(root.substring("jar:".length(),
+						root.length() - "!/".length())));
+				try (ZipFile zip = new ZipFile(jarFile.toFile())) {
+					Enumeration<? extends ZipEntry> entries = zip.entries();
+					while (entries.hasMoreElements()) {
+						ZipEntry entry = entries.nextElement();
+						if (resourceNames.contains(entry.getName())) {
+							try (InputStream in = zip.getInputStream(entry)) {
+								submit(parser, executor, entry.getName(),
+										ByteStreams.toByteArray(in));
+							}
+						}
+					}
+				}
+			} else if (root.startsWith("file:")) {
+				Path directory = Paths.get(new URI(root));
+				for (String resourceName : resourceNames) {
+					submit(parser, executor, resourceName,
+							Files.readAllBytes(directory.resolve(resourceName)));
+				}
+			} else {
+				for (String resourceName : resourceNames) {
+					parse(parser, resourceName);
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			logger.error("Error while reading " + root, e);
+		}
+	}
+
+	private void submit(final ClassParser parser, Executor executor,
+			final String resourceName, final byte[] bytes) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					parser.parse(new ClassReader(bytes));
+				} catch (Throwable t) {
+					logger.error("Error while reading " + resourceName, t);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Parse the class with the given resource name, loaded through the class
+	 * loader. Errors are logged.
+	 */
+	void parse(ClassParser parser, String resourceName) {
+		try (InputStream is = classLoader.getResourceAsStream(resourceName)) {
+			parser.parse(new ClassReader(is));
+		} catch (Throwable t) {
+			logger.error("Error while reading " + resourceName, t);
+		}
+	}
+
+	/**
+	 * Return the classes on the class path which pass the configured filters
+	 * and are not contained in a class path entry read from an index.
+	 */
+	List<ClassInfo> getClassesToParse() throws IOException {
+		List<ClassInfo> result = new ArrayList<>();
+		for (ResourceInfo resource : ClassPath.from(classLoader).getResources()) {
+			if (!(resource instanceof ClassInfo)
+					|| !config.packageFilter.isIncluded(resource
+							.getResourceName()) || !isIncluded(resource.url())
+					|| indexedRoots.contains(getRoot(resource.url(),
+							resource.getResourceName()))) {
+				continue;
+			}
+			result.add((ClassInfo) resource);
+		}
+		return result;
+	}
+
+	/**
+	 * Read the module indexes found on the class path into the project. The
+	 * classes of the indexed entries are excluded from
+	 * {@link #getClassesToParse()} afterwards.
+	 */
+	void readIndexes(ProjectModel project) throws IOException {
+		Enumeration<URL> indexes = classLoader
+				.getResources(ModelIndex.RESOURCE_NAME);
+		while (indexes.hasMoreElements()) {
+			URL url = indexes.nextElement();
+			if (!isIncluded(url)) {
+				continue;
+			}
+			logger.debug("reading module index " + url);
+			try {
+				if ("file".equals(url.getProtocol())) {
+					ModelIndex.read(Paths.get(url.toURI()), project);
+				} else {
+					try (InputStream in = url.openStream()) {
+						ModelIndex.read(in, project);
+					}
+				}
+				indexedRoots.add(getRoot(url, ModelIndex.RESOURCE_NAME));
+			} catch (IOException | URISyntaxException e) {
+				// the classes of the entry are parsed instead
+				logger.error("Error while reading module index " + url, e);
+			}
+		}
+	}
+
+	private boolean isIncluded(URL url) {
+		if (!config.includeJars && "jar".equals(url.getProtocol())) {
+			return false;
+		}
+		if (config.excludePath != null
+				&& url.getPath().contains(config.excludePath)) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the root of the class path entry containing the resource with
+	 * the given url and name.
+	 */
+	static String getRoot(URL url, String resourceName) {
+		String s = url.toString();
+		if (s.endsWith(resourceName)) {
+			return s.substring(0, s.length() - resourceName.length());
+		}
+		return s;
+	}
+}
@@ -0,0 +1,146 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.reflect.ClassPath.ClassInfo;
+
+/**
+ * Builds a partial {@link ProjectModel} containing just what is required to
+ * answer questions about a single module: the module, all modules it imports
+ * or exports (transitively), the classes matching the patterns of these
+ * modules, and all classes transitively used by them. Only the names of the
+ * classes on the class path are listed, the bytecode of other classes is
+ * never read. Class path entries containing a module index are read from the
+ * index as a whole, just like {@link ClasspathScanner} does.
+ *
+ * <p>
+ * Classes matched by a module which is neither the requested module nor one
+ * of its dependencies are not assigned to that module, since it is not
+ * parsed. The class dependencies of the requested module are complete.
+ * </p>
+ */
+class LazyModelBuilder {
+	private final static Logger logger = LoggerFactory
+			.getLogger(LazyModelBuilder.class);
+
+	private final ClasspathScanner scanner;
+	private final ModulesConfig config;
+
+	private final ClassParser parser = new ClassParser();
+
+	/**
+	 * Resource names of the available classes, by class name
+	 */
+	private final Map<String, String> availableClasses = new HashMap<>();
+	private final Set<String> visitedClasses = new HashSet<>();
+	private final Deque<String> pendingClasses = new ArrayDeque<>();
+
+	public LazyModelBuilder(ClassLoader classLoader, ModulesConfig config) {
+		this.config = config;
+		scanner = new ClasspathScanner(classLoader, config);
+	}
+
+	/**
+	 * Build the model for the module with the given representing class
+	 */
+	public ProjectModel build(String moduleClassName) throws IOException {
+		ProjectModel project = parser.getProject();
+		project.setUseModuleNames(config.useModuleNames);
+		scanner.readIndexes(project);
+		List<String> indexedClasses = new ArrayList<>(project.getClasses()
+				.keySet());
+		for (ClassInfo info : scanner.getClassesToParse()) {
+			availableClasses.put(info.getName(), info.getResourceName());
+		}
+
+		// parse the modules
+		List<ModuleModel> modules = new ArrayList<>();
+		Deque<String> pendingModules = new ArrayDeque<>();
+		Set<String> visitedModules = new HashSet<>();
+		pendingModules.add(moduleClassName);
+		while (!pendingModules.isEmpty()) {
+			String name = pendingModules.poll();
+			if (!visitedModules.add(name)) {
+				continue;
+			}
+			visitClass(name, name.equals(moduleClassName));
+			ModuleModel module = project.getModule(name);
+			if (module == null) {
+				logger.warn("module " + name + " not found");
+				continue;
+			}
+			modules.add(module);
+			pendingModules.addAll(module.getImportedModuleNames());
+			pendingModules.addAll(module.getExportedModuleNames());
+		}
+
+		// queue the classes of the modules
+		List<String> classNames = new ArrayList<>(availableClasses.keySet());
+		classNames.addAll(indexedClasses);
+		for (String className : classNames) {
+			for (ModuleModel module : modules) {
+				if (module.isIncluded(className)) {
+					pendingClasses.add(className);
+					break;
+				}
+			}
+		}
+
+		// follow the used classes
+		while (!pendingClasses.isEmpty()) {
+			visitClass(pendingClasses.poll(), false);
+		}
+
+		logger.debug("parsed " + visitedClasses.size() + " of "
+				+ availableClasses.size() + " classes for module "
+				+ moduleClassName);
+		project.resolveDependencies();
+		return project;
+	}
+
+	/**
+	 * Parse a class if it is available and not visited yet, and queue the
+	 * classes it references. Classes read from an index are not parsed.
+	 */
+	private void visitClass(String className, boolean force) {
+		if (!visitedClasses.add(className)) {
+			return;
+		}
+		ClassModel clazz = parser.getProject().getClassModel(className);
+		if (clazz == null) {
+			String resourceName = availableClasses.get(className);
+			if (resourceName == null) {
+				if (!force) {
+					return;
+				}
+				resourceName = className.replace('.', '/') + ".class";
+			}
+			scanner.parse(parser, resourceName);
+
+			clazz = parser.getProject().getClassModel(className);
+			if (clazz == null) {
+				return;
+			}
+		}
+		pendingClasses.addAll(clazz.getUsesClassNames());
+		pendingClasses.addAll(clazz.innerClassNames);
+		if (clazz.outerClassName != null) {
+			pendingClasses.add(clazz.outerClassName);
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package org.jabsaw.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.ProjectModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of the {@link ProjectModel} of a class path, shared between
+ * JVMs. The cache files use the {@link ModelIndex} format and are keyed by a
+ * hash of the class path entries, their sizes and modification times and the
+ * configuration. The first JVM scans the class path while holding a file lock,
+ * all other JVMs wait for the lock and memory map the cache file. File locks
+ * are held on behalf of the whole JVM, thus threads of the same JVM are
+ * serialized by a monitor per lock file in addition.
+ */
+class ModelCache {
+	private final static Logger logger = LoggerFactory
+			.getLogger(ModelCache.class);
+
+	/**
+	 * Monitors guarding the file locks within this JVM, keyed by the absolute
+	 * path of the lock file.
+	 */
+	private final static ConcurrentMap<Path, Object> jvmLocks = new ConcurrentHashMap<>();
+
+	private final Path directory;
+	private final ClassLoader classLoader;
+	private final ModulesConfig config;
+
+	public ModelCache(Path directory, ClassLoader classLoader,
+			ModulesConfig config) {
+		this.directory = directory;
+		this.classLoader = classLoader;
+		this.config = config;
+	}
+
+	/**
+	 * Return the project model from the cache. If the cache file does not
+	 * exist, the class path is scanned and the cache file is written.
+	 */
+	public ProjectModel getProjectModel() throws IOException {
+		Files.createDirectories(directory);
+		String key = calculateKey();
+		Path cacheFile = directory.resolve("jabsaw-" + key + ".idx");
+
+		// cache files are moved into place once complete, thus no lock is
+		// required to read them
+		ProjectModel cached = tryRead(cacheFile);
+		if (cached != null) {
+			return cached;
+		}
+
+		Path lockFile = directory.resolve("jabsaw-" + key + ".lock")
+				.toAbsolutePath().normalize();
+		// FileChannel.lock() throws an OverlappingFileLockException if the
+		// file is already locked by another thread of this JVM
+		synchronized (getJvmLock(lockFile)) {
+			try (FileChannel lockChannel = FileChannel.open(lockFile,
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					FileLock lock = lockChannel.lock()) {
+				// written by another thread or JVM while waiting for the lock
+				cached = tryRead(cacheFile);
+				if (cached != null) {
+					return cached;
+				}
+
+				ProjectModel project = new ClasspathScanner(classLoader,
+						config).scan();
+				Path tmpFile = directory.resolve("jabsaw-" + key + ".tmp");
+				try (OutputStream out = new BufferedOutputStream(
+						Files.newOutputStream(tmpFile))) {
+					ModelIndex.write(project, out);
+				}
+				Files.move(tmpFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+				logger.info("wrote model cache " + cacheFile);
+				return project;
+			}
+		}
+	}
+
+	private static Object getJvmLock(Path lockFile) {
+		Object lock = jvmLocks.get(lockFile);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = jvmLocks.putIfAbsent(lockFile, newLock);
+			if (lock == null) {
+				lock = newLock;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Read the cache file if it exists. Returns null if the file does not
+	 * exist or can not be read, for example because it has been written by a
+	 * different version or is corrupt.
+	 */
+	private ProjectModel tryRead(Path cacheFile) {
+		if (!Files.exists(cacheFile)) {
+			return null;
+		}
+		logger.info("reading model cache " + cacheFile);
+		ProjectModel project = new ProjectModel();
+		project.setUseModuleNames(config.useModuleNames);
+		try {
+			ModelIndex.read(cacheFile, project);
+			project.resolveDependencies();
+		} catch (IOException | RuntimeException e) {
+			// the cache file is rewritten by scanning the class path
+			logger.warn("unable to read model cache " + cacheFile, e);
+			return null;
+		}
+		return project;
+	}
+
+	/**
+	 * Calculate the hash identifying the current state of the class path.
+	 */
+	String calculateKey() throws IOException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		update(digest, config.scanKey);
+
+		for (Path entry : getClasspathEntries(classLoader)) {
+			update(digest, entry.toString());
+			if (Files.isDirectory(entry)) {
+				final Path root = entry;
+				Files.walkFileTree(entry, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult visitFile(Path file,
+							BasicFileAttributes attrs) throws IOException {
+						update(digest, root.relativize(file) + "|"
+								+ attrs.size() + "|"
+								+ attrs.lastModifiedTime().toMillis());
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			} else if (Files.exists(entry)) {
+				update(digest, Files.size(entry) + "|"
+						+ Files.getLastModifiedTime(entry).toMillis());
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		digest.update(s.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Return the file system entries of the class path of the given class
+	 * loader. The URLs of all {@link URLClassLoader}s in the parent chain are
+	 * used. If there are none, the java.class.path system property is used.
+	 * The Class-Path manifest entries of jars are followed. Jars containing
+	 * nothing but a manifest, like the booter jars of Surefire, are replaced
+	 * by the entries of their class path, since their location usually
+	 * changes with every JVM.
+	 */
+	static List<Path> getClasspathEntries(ClassLoader classLoader) {
+		List<Path> roots = new ArrayList<>();
+		for (ClassLoader loader = classLoader; loader != null; loader = loader
+				.getParent()) {
+			if (loader instanceof URLClassLoader) {
+				for (URL url : ((URLClassLoader) loader).getURLs()) {
+					if ("file".equals(url.getProtocol())) {
+						try {
+							roots.add(Paths.get(url.toURI()));
+						} catch (URISyntaxException e) {
+							roots.add(Paths.get(url.getPath()));
+						}
+					}
+				}
+			}
+		}
+		if (roots.isEmpty()) {
+			for (String entry : System.getProperty("java.class.path", "")
+					.split(File.pathSeparator)) {
+				if (!entry.isEmpty()) {
+					roots.add(Paths.get(entry));
+				}
+			}
+		}
+
+		List<Path> result = new ArrayList<>();
+		Set<Path> visited = new HashSet<>();
+		for (Path root : roots) {
+			addClasspathEntry(root, result, visited);
+		}
+		return result;
+	}
+
+	private static void addClasspathEntry(Path entry, List<Path> result,
+			Set<Path> visited) {
+		if (!visited.add(entry.toAbsolutePath().normalize())) {
+			return;
+		}
+		List<Path> manifestEntries = new ArrayList<>();
+		boolean manifestOnly = false;
+		if (Files.isRegularFile(entry)) {
+			try (JarFile jar = new JarFile(entry.toFile())) {
+				Manifest manifest = jar.getManifest();
+				String classPath = manifest == null ? null : manifest
+						.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+				if (classPath != null) {
+					manifestOnly = isManifestOnly(jar);
+					for (String item : classPath.trim().split("\\s+")) {
+						Path path = resolveManifestEntry(entry, item);
+						if (path != null) {
+							manifestEntries.add(path);
+						}
+					}
+				}
+			} catch (IOException e) {
+				// not a jar, only the entry itself is used
+				logger.debug("unable to read class path entry " + entry, e);
+			}
+		}
+		if (!manifestOnly) {
+			result.add(entry);
+		}
+		for (Path path : manifestEntries) {
+			addClasspathEntry(path, result, visited);
+		}
+	}
+
+	private static boolean isManifestOnly(JarFile jar) {
+		Enumeration<JarEntry> entries = jar.entries();
+		while (entries.hasMoreElements()) {
+			JarEntry jarEntry = entries.nextElement();
+			if (!jarEntry.isDirectory()
+					&& !jarEntry.getName().startsWith("META-INF/")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolve a Class-Path manifest entry, which is a URL relative to the jar
+	 * containing the manifest. Returns null for entries which are not files.
+	 */
+	private static Path resolveManifestEntry(Path jar, String item) {
+		if (item.isEmpty()) {
+			return null;
+		}
+		try {
+			URI uri = jar.toAbsolutePath().toUri().resolve(item);
+			if (!"file".equals(uri.getScheme())) {
+				return null;
+			}
+			return Paths.get(uri);
+		} catch (IllegalArgumentException e) {
+			logger.debug("invalid Class-Path entry " + item + " in " + jar);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.PackageModuleTable;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Class loader isolating a module. Classes of modules accessible from the
+ * module are defined by this loader, from the class files of the parent
+ * loader, so their references are resolved through this loader as well.
+ * Loading classes of inaccessible modules fails. Classes in no module are
+ * delegated to the parent.
+ */
+class ModuleClassLoader extends ClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private final ModuleModel module;
+	private final PackageModuleTable moduleTable;
+
+	/**
+	 * Packages defined by this loader. Tracked here since getPackage() is
+	 * deprecated on newer Java versions
+	 */
+	private final Set<String> definedPackages = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public ModuleClassLoader(ModuleModel module,
+			PackageModuleTable moduleTable, ClassLoader parent) {
+		super(parent);
+		this.module = module;
+		this.moduleTable = moduleTable;
+	}
+
+	public ModuleModel getModule() {
+		return module;
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve)
+			throws ClassNotFoundException {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			if (clazz == null) {
+				ModuleModel owner = moduleTable.getModule(name);
+				if (owner == null) {
+					clazz = super.loadClass(name, false);
+				} else if (module.isAccessible(owner)) {
+					clazz = findClass(name);
+				} else {
+					throw new ClassNotFoundException(name + " of module "
+							+ owner + " is not accessible from module "
+							+ module);
+				}
+			}
+			if (resolve) {
+				resolveClass(clazz);
+			}
+			return clazz;
+		}
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		String resourceName = name.replace('.', '/') + ".class";
+		try (InputStream in = getParent().getResourceAsStream(resourceName)) {
+			if (in == null) {
+				throw new ClassNotFoundException(name);
+			}
+			byte[] bytes = ByteStreams.toByteArray(in);
+			int idx = name.lastIndexOf('.');
+			if (idx > 0) {
+				String pkg = name.substring(0, idx);
+				if (definedPackages.add(pkg)) {
+					try {
+						definePackage(pkg, null, null, null, null, null, null,
+								null);
+					} catch (IllegalArgumentException e) {
+						// defined concurrently
+					}
+				}
+			}
+			return defineClass(name, bytes, 0, bytes.length);
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+	}
+}
@@ -1,23 +1,35 @@
 package org.jabsaw.util;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.annotation.Annotation;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.ModelIndex;
 import org.jabsaw.impl.model.ClassModel;
 import org.jabsaw.impl.model.ModuleModel;
 import org.jabsaw.impl.model.ProjectModel;
-import org.objectweb.asm.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableList;
-import com.google.common.reflect.ClassPath;
-import com.google.common.reflect.ClassPath.ClassInfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Static utility methods.
@@ -25,110 +37,460 @@ import com.google.common.reflect.ClassPath.ClassInfo;
 public class Modules {
 	private final static Logger logger = LoggerFactory.getLogger(Modules.class);
 
-	private static ProjectModel projectModel;
+	/**
+	 * Project models by class loader. Class loaders are held weakly, models
+	 * softly, so neither is pinned by the cache. Reads of loaded models do not
+	 * lock.
+	 */
+	private static final LoadingCache<ClassLoader, ProjectModel> projectModels = CacheBuilder
+			.newBuilder().weakKeys().softValues()
+			.build(new CacheLoader<ClassLoader, ProjectModel>() {
+				@Override
+				public ProjectModel load(ClassLoader classLoader)
+						throws IOException {
+					return Modules.loadProjectModel(classLoader);
+				}
+			});
+
+	private static final LoadingCache<ClassLoader, ModulesConfig> configs = CacheBuilder
+			.newBuilder().weakKeys()
+			.build(new CacheLoader<ClassLoader, ModulesConfig>() {
+				@Override
+				public ModulesConfig load(ClassLoader classLoader) {
+					return ModulesConfig.load(classLoader);
+				}
+			});
 
-	private static class Config {
+	/**
+	 * Partial project models of the lazy mode, by representing class of the
+	 * module
+	 */
+	private static final LoadingCache<Class<?>, ProjectModel> lazyProjectModels = CacheBuilder
+			.newBuilder().weakKeys().softValues()
+			.build(new CacheLoader<Class<?>, ProjectModel>() {
+				@Override
+				public ProjectModel load(Class<?> module) throws IOException {
+					ClassLoader classLoader = Modules.getClassLoader(module);
+					return new LazyModelBuilder(classLoader, Modules.configs
+							.getUnchecked(classLoader)).build(module.getName());
+				}
+			});
 
-		public final boolean includeJars;
-		public final boolean useModuleNames;
-		public final String excludePath;
+	/**
+	 * Pending warm ups by class loader. Entries are removed once the model is
+	 * read, so the futures do not keep the models alive.
+	 */
+	private static final Cache<ClassLoader, SettableFuture<ProjectModel>> warmUps = CacheBuilder
+			.newBuilder().weakKeys().build();
 
-		public Config(Properties properties) {
-			includeJars = parseBoolean(properties, "includeJars", true);
-			useModuleNames = parseBoolean(properties, "useModuleNames", false);
-			excludePath = properties.getProperty("excludePath");
+	/**
+	 * Executor of the warm ups. The single daemon thread terminates when idle.
+	 */
+	static final ThreadPoolExecutor warmUpExecutor = new ThreadPoolExecutor(1,
+			1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactoryBuilder().setNameFormat("jabsaw-warm-up")
+					.setDaemon(true).build());
+	static {
+		Modules.warmUpExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Incremented whenever cached models are invalidated or refreshed, to
+	 * detect outdated entries of {@link #modulesOfClasses}
+	 */
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * The module of a class. The module is referenced weakly, to not keep the
+	 * project model alive after it has been released by the cache.
+	 */
+	private static final class ModuleOf {
+		final int generation;
+		final WeakReference<ModuleModel> module;
 
+		ModuleOf(int generation, ModuleModel module) {
+			this.generation = generation;
+			this.module = module == null ? null
+					: new WeakReference<ModuleModel>(module);
 		}
+	}
 
-		private boolean parseBoolean(Properties properties,
-				String propertyName, boolean defaultValue) throws Error {
-			boolean value;
-			String s = properties.getProperty(propertyName);
-			if (s != null) {
-				if ("true".equalsIgnoreCase(s)) {
-					value = defaultValue;
-				} else if ("false".equalsIgnoreCase(s)) {
-					value = false;
-				} else {
-					throw new Error(propertyName + " must be true or false");
-				}
+	private static final ClassValue<ModuleOf> modulesOfClasses = new ClassValue<ModuleOf>() {
+		@Override
+		protected ModuleOf computeValue(Class<?> type) {
+			int currentGeneration = Modules.generation.get();
+			return new ModuleOf(currentGeneration, Modules.resolveModuleOf(type));
+		}
+	};
 
-			} else {
-				value = defaultValue;
-			}
-			return value;
+	private static ModuleModel resolveModuleOf(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive()) {
+			return null;
+		}
+		return Modules.getProjectModel(Modules.getClassLoader(type))
+				.resolveModule(type.getName());
+	}
+
+	static {
+		ClassLoader classLoader = Modules.class.getClassLoader();
+		if (Modules.configs.getUnchecked(classLoader).warmUpOnLoad) {
+			Modules.warmUpAsync(classLoader);
 		}
+	}
 
+	private static ProjectModel loadProjectModel(ClassLoader classLoader)
+			throws IOException {
+		ModulesConfig config = Modules.configs.getUnchecked(classLoader);
+		if (config.cacheDirectory != null) {
+			return new ModelCache(Paths.get(config.cacheDirectory),
+					classLoader, config).getProjectModel();
+		} else {
+			return new ClasspathScanner(classLoader, config).scan();
+		}
 	}
 
 	/**
-	 * Return the {@link ProjectModel} of the current classpath.
+	 * Return the {@link ProjectModel} of the classpath of the class loader of
+	 * this class. See {@link #getProjectModel(ClassLoader)}
 	 */
 	public static ProjectModel getProjectModel() {
-		synchronized (Modules.class) {
-			if (Modules.projectModel == null) {
-				ClassLoader classLoader = Modules.class.getClassLoader();
-				Config config = new Config(new Properties());
-				try (InputStream in = classLoader
-						.getResourceAsStream("jabsaw.properties")) {
-					Properties properties = new Properties();
-					if (in != null) {
-						properties.load(in);
-					} else {
-						Modules.logger.info("jabsaw.properties not found");
-					}
-					config = new Config(properties);
-					Modules.logger.info("loaded jabsaw.properties");
-				} catch (IOException e1) {
-					Modules.logger.error("error loading jabsaw.properties");
-				}
+		return Modules.getProjectModel(Modules.class.getClassLoader());
+	}
 
+	/**
+	 * Return the {@link ProjectModel} of the classpath of the given class
+	 * loader. Class path entries containing a module index (see
+	 * {@link ModelIndex}) are read from the index, the classes of all other
+	 * entries are parsed. If a cache directory is configured, the model is
+	 * shared between JVMs using the same class path. The model is cached per
+	 * class loader until it is invalidated or garbage collected.
+	 */
+	public static ProjectModel getProjectModel(ClassLoader classLoader) {
+		try {
+			return Modules.projectModels.get(classLoader);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw new RuntimeException(
+					"error while reading classes on classpath", e.getCause());
+		}
+	}
+
+	/**
+	 * Start reading the {@link ProjectModel} of the class loader of this class
+	 * in the background. See {@link #warmUpAsync(ClassLoader)}
+	 */
+	public static ListenableFuture<ProjectModel> warmUpAsync() {
+		return Modules.warmUpAsync(Modules.class.getClassLoader());
+	}
+
+	/**
+	 * Start reading the {@link ProjectModel} of the given class loader on a
+	 * shared daemon thread. The returned future completes with the model.
+	 * Callers of {@link #getProjectModel(ClassLoader)} only block until the
+	 * background scan is finished. If the model is loaded already, a completed
+	 * future is returned, if a warm up of the class loader is pending, its
+	 * future is returned.
+	 */
+	public static ListenableFuture<ProjectModel> warmUpAsync(
+			final ClassLoader classLoader) {
+		ProjectModel model = Modules.projectModels.getIfPresent(classLoader);
+		if (model != null) {
+			return Futures.immediateFuture(model);
+		}
+		final SettableFuture<ProjectModel> future = SettableFuture.create();
+		SettableFuture<ProjectModel> pending = Modules.warmUps.asMap()
+				.putIfAbsent(classLoader, future);
+		if (pending != null) {
+			return pending;
+		}
+		Modules.warmUpExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
 				try {
-					// load all classes on the classpath
-					ImmutableList<ClassInfo> classes = FluentIterable
-							.from(ClassPath.from(classLoader).getResources())
-							.filter(ClassInfo.class).toList();
-					ClassParser parser = new ClassParser();
-					parser.getProject()
-							.setUseModuleNames(config.useModuleNames);
-					for (ClassInfo info : classes) {
-						if (!config.includeJars) {
-							if ("jar".equals(info.url().getProtocol())) {
-								continue;
-							}
-						}
-						if (config.excludePath != null
-								&& info.url().getPath()
-										.contains(config.excludePath)) {
-							continue;
-						}
-						Modules.logger.trace("parsing" + info.url());
-
-						try (InputStream is = classLoader
-								.getResourceAsStream(info.getResourceName())) {
-							ClassReader reader = new ClassReader(is);
-							parser.parse(reader);
-						} catch (Throwable t) {
-							Modules.logger.error(
-									"Error while reading " + info.getName(), t);
-						}
-					}
-					parser.getProject().resolveDependencies();
-					Modules.projectModel = parser.getProject();
-				} catch (IOException e) {
-					throw new RuntimeException(
-							"error while reading classes on classpath", e);
+					future.set(Modules.getProjectModel(classLoader));
+				} catch (Throwable t) {
+					Modules.logger.error("Error while warming up modules", t);
+					future.setException(t);
+				} finally {
+					Modules.warmUps.asMap().remove(classLoader, future);
 				}
 			}
+		});
+		return future;
+	}
+
+	/**
+	 * Return the module the given class belongs to, or null if the class is
+	 * in no module. Nested, anonymous and synthetic classes belong to the
+	 * module of their toplevel class, classes not seen while scanning the
+	 * class path to the module whose patterns match (see
+	 * {@link ProjectModel#resolveModule(String)}). The result is cached per class, repeated
+	 * lookups do not allocate. The cache does not keep the project model
+	 * alive.
+	 */
+	public static ModuleModel getModuleOf(Class<?> clazz) {
+		ModuleOf result = Modules.modulesOfClasses.get(clazz);
+		if (result.generation == Modules.generation.get()) {
+			if (result.module == null) {
+				return null;
+			}
+			ModuleModel module = result.module.get();
+			if (module != null) {
+				return module;
+			}
+		}
+		// outdated, or the project model has been garbage collected. The
+		// entry is computed again by the next lookup, the module resolved
+		// here is returned directly, since it could be collected again
+		// before being read from a new entry.
+		Modules.modulesOfClasses.remove(clazz);
+		return Modules.resolveModuleOf(clazz);
+	}
+
+	/**
+	 * Return the classes implementing or extending the given type, which are
+	 * neither abstract nor interfaces. The classes are taken from the class
+	 * hierarchy index of the project model (see
+	 * {@link ProjectModel#getClassHierarchy()}), no class path scanning or
+	 * reflection is involved.
+	 */
+	public static <T> List<Class<? extends T>> getImplementations(
+			Class<T> type) {
+		return Modules.getImplementations(type, null);
+	}
+
+	/**
+	 * Return the classes of the given module implementing or extending the
+	 * given type, which are neither abstract nor interfaces. Nested classes
+	 * belong to the module of their toplevel class. If the module is null,
+	 * implementations in all modules and in no module are returned. See
+	 * {@link #getImplementations(Class)}
+	 */
+	public static <T> List<Class<? extends T>> getImplementations(
+			Class<T> type, Class<?> module) {
+		ClassLoader classLoader = Modules.getClassLoader(module == null ? type
+				: module);
+		ProjectModel project = Modules.getProjectModel(classLoader);
+
+		List<Class<? extends T>> result = new ArrayList<>();
+		for (Class<?> clazz : Modules.loadClasses(classLoader, project,
+				Modules.getModuleModel(project, module), project
+						.getClassHierarchy().getImplementations(type.getName()))) {
+			try {
+				result.add(clazz.asSubclass(type));
+			} catch (ClassCastException e) {
+				Modules.logger.error("Error loading class " + clazz.getName(),
+						e);
+			}
 		}
-		return Modules.projectModel;
+		return result;
 	}
 
 	/**
-	 * Get the {@link ModuleModel} defined by the given representing class
+	 * Return the classes annotated with the given annotation, using the
+	 * annotation index built while parsing. Since the index is built from
+	 * the class files, annotations with any retention are found. See
+	 * {@link #getAnnotatedClasses(Class, Class)}
+	 */
+	public static List<Class<?>> getAnnotatedClasses(
+			Class<? extends Annotation> annotation) {
+		return Modules.getAnnotatedClasses(annotation, null);
+	}
+
+	/**
+	 * Return the classes of the given module annotated with the given
+	 * annotation. Nested classes belong to the module of their toplevel
+	 * class. If the module is null, annotated classes in all modules and in no
+	 * module are returned.
+	 */
+	public static List<Class<?>> getAnnotatedClasses(
+			Class<? extends Annotation> annotation, Class<?> module) {
+		ClassLoader classLoader = Modules.getClassLoader(module == null ? annotation
+				: module);
+		ProjectModel project = Modules.getProjectModel(classLoader);
+		return Modules.loadClasses(classLoader, project, Modules
+				.getModuleModel(project, module), project.getAnnotationIndex()
+				.getAnnotatedClasses(annotation.getName()));
+	}
+
+	/**
+	 * Return the model of the given module, null if the module is null
+	 */
+	private static ModuleModel getModuleModel(ProjectModel project,
+			Class<?> module) {
+		if (module == null) {
+			return null;
+		}
+		ModuleModel moduleModel = project.getModule(module.getName());
+		if (moduleModel == null) {
+			throw new IllegalArgumentException(module.getName()
+					+ " is not a module");
+		}
+		return moduleModel;
+	}
+
+	/**
+	 * Load the given classes which belong to the given module, or all given
+	 * classes if the module is null. Nested classes belong to the module of
+	 * their toplevel class. Classes which can not be loaded are logged and
+	 * skipped.
+	 */
+	private static List<Class<?>> loadClasses(ClassLoader classLoader,
+			ProjectModel project, ModuleModel moduleModel,
+			Iterable<ClassModel> classes) {
+		List<Class<?>> result = new ArrayList<>();
+		for (ClassModel clazz : classes) {
+			if (moduleModel != null
+					&& project.findClassModel(clazz.getQualifiedName())
+							.getModule() != moduleModel) {
+				continue;
+			}
+			try {
+				result.add(classLoader.loadClass(clazz.getQualifiedName()));
+			} catch (ClassNotFoundException e) {
+				Modules.logger.error(
+						"Error loading class " + clazz.getQualifiedName(), e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Default number of stack frames examined by {@link #getCallerModule()}
+	 */
+	public static final int DEFAULT_CALLER_DEPTH = 16;
+
+	private static final CallerContext callerContext = CallerContext.create();
+
+	/**
+	 * Return the module of the nearest caller belonging to a module. See
+	 * {@link #getCallerModule(int)}
+	 */
+	public static ModuleModel getCallerModule() {
+		return Modules.getCallerModule(Modules.DEFAULT_CALLER_DEPTH);
+	}
+
+	/**
+	 * Return the module of the nearest caller belonging to a module, looking
+	 * at no more than maxDepth frames above the calling method. The calling
+	 * method itself is included. Frames of this class are skipped. The module
+	 * of each class is determined by {@link #getModuleOf(Class)} and thus
+	 * cached. Returns null if no module is found.
+	 */
+	public static ModuleModel getCallerModule(int maxDepth) {
+		for (Class<?> caller : Modules.callerContext.getCallers(Modules.class,
+				maxDepth)) {
+			ModuleModel module = Modules.getModuleOf(caller);
+			if (module != null) {
+				return module;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Discard the cached model of the given class loader. The next access
+	 * reads the classpath again.
+	 */
+	public static void invalidate(ClassLoader classLoader) {
+		Modules.projectModels.invalidate(classLoader);
+		Modules.configs.invalidate(classLoader);
+		Modules.generation.incrementAndGet();
+		Modules.invalidateLazyProjectModels(classLoader);
+	}
+
+	private static void invalidateLazyProjectModels(ClassLoader classLoader) {
+		for (Class<?> module : Modules.lazyProjectModels.asMap().keySet()) {
+			if (Modules.getClassLoader(module) == classLoader) {
+				Modules.lazyProjectModels.invalidate(module);
+			}
+		}
+	}
+
+	/**
+	 * Discard all cached models.
+	 */
+	public static void invalidateAll() {
+		Modules.projectModels.invalidateAll();
+		Modules.lazyProjectModels.invalidateAll();
+		Modules.configs.invalidateAll();
+		Modules.generation.incrementAndGet();
+	}
+
+	/**
+	 * Read the classpath of the given class loader again. Until the new model
+	 * is available, concurrent callers continue to get the previous model.
+	 * Partial models of the lazy mode are discarded and built again on the
+	 * next access. In lazy mode, the full model is only read again if it has
+	 * been loaded before.
+	 */
+	public static void refresh(ClassLoader classLoader) {
+		if (!Modules.configs.getUnchecked(classLoader).lazy
+				|| Modules.projectModels.getIfPresent(classLoader) != null) {
+			Modules.projectModels.refresh(classLoader);
+		}
+		Modules.invalidateLazyProjectModels(classLoader);
+		Modules.generation.incrementAndGet();
+	}
+
+	/**
+	 * Return the class loader whose project model describes the given class.
+	 * Classes of a module class loader are described by the model of its
+	 * parent.
+	 */
+	private static ClassLoader getClassLoader(Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader instanceof ModuleClassLoader) {
+			return classLoader.getParent();
+		}
+		return classLoader == null ? Modules.class.getClassLoader()
+				: classLoader;
+	}
+
+	/**
+	 * Create a class loader which only exposes the classes accessible from
+	 * the given module, see {@link ModuleModel#isAccessible(ClassModel)}. The
+	 * classes of accessible modules are loaded again by the new class loader.
+	 * Classes in no module are loaded by the class loader of the module
+	 * class. The owning module of a class is found with a single lookup of
+	 * its package (see {@link ProjectModel#getPackageModuleTable()}).
+	 */
+	public static ClassLoader createModuleClassLoader(Class<?> module) {
+		ClassLoader classLoader = Modules.getClassLoader(module);
+		ProjectModel project = Modules.getProjectModel(classLoader);
+		ModuleModel moduleModel = project.getModule(module.getName());
+		if (moduleModel == null) {
+			throw new IllegalArgumentException(module.getName()
+					+ " is not a module");
+		}
+		return new ModuleClassLoader(moduleModel,
+				project.getPackageModuleTable(), classLoader);
+	}
+
+	/**
+	 * Get the {@link ModuleModel} defined by the given representing class,
+	 * using the project model of the class loader of the class. In lazy mode
+	 * (see the lazy property), a partial model is built for the module unless
+	 * the full model has been loaded already.
 	 */
 	public static ModuleModel getModuleModel(Class<?> module) {
-		return Modules.getProjectModel().getModule(module.getName());
+		ClassLoader classLoader = Modules.getClassLoader(module);
+		ProjectModel project = Modules.projectModels.getIfPresent(classLoader);
+		if (project == null) {
+			if (Modules.configs.getUnchecked(classLoader).lazy) {
+				try {
+					project = Modules.lazyProjectModels.get(module);
+				} catch (ExecutionException | UncheckedExecutionException e) {
+					throw new RuntimeException("error while reading module "
+							+ module.getName(), e.getCause());
+				}
+			} else {
+				project = Modules.getProjectModel(classLoader);
+			}
+		}
+		return project.getModule(module.getName());
 	}
 
 	/**
@@ -137,7 +499,7 @@ public class Modules {
 	 */
 	public static Class<?>[] getAllRequiredClasses(Class<?> module) {
 		HashSet<Class<?>> result = new HashSet<>();
-		ClassLoader classLoader = Modules.class.getClassLoader();
+		ClassLoader classLoader = Modules.getClassLoader(module);
 
 		// follow dependencies by classes
 		for (ClassModel info : Modules.getModuleModel(module)
@@ -159,7 +521,7 @@ public class Modules {
 	 */
 	public static Class<?>[] getClasses(Class<?> module) {
 		HashSet<Class<?>> result = new HashSet<>();
-		ClassLoader classLoader = Modules.class.getClassLoader();
+		ClassLoader classLoader = Modules.getClassLoader(module);
 		for (ClassModel info : Modules.getModuleModel(module)
 				.getAllClassDependencies()) {
 			try {
@@ -172,6 +534,37 @@ public class Modules {
 		return result.toArray(new Class<?>[] {});
 	}
 
+	/**
+	 * Load all classes the given module depends on, without initializing
+	 * them. See {@link #preload(Class, Executor, boolean)}
+	 */
+	public static ListenableFuture<PreloadStatistics> preload(
+			Class<?> module, Executor executor) {
+		return Modules.preload(module, executor, false);
+	}
+
+	/**
+	 * Load all classes the given module depends on, including transitive
+	 * dependencies, using the class loader the module has been read from:
+	 * the class loader of the module class, or its parent for classes of a
+	 * {@link #createModuleClassLoader(Class) module class loader}. The classes
+	 * are loaded by tasks submitted to the given executor, in dependency
+	 * order: all classes of a dependency level are loaded in parallel, before
+	 * the next level is started. If initialize is true, the classes are
+	 * initialized as well. The returned future completes once all classes
+	 * have been processed.
+	 */
+	public static ListenableFuture<PreloadStatistics> preload(
+			Class<?> module, Executor executor, boolean initialize) {
+		ModuleModel moduleModel = Modules.getModuleModel(module);
+		if (moduleModel == null) {
+			throw new IllegalArgumentException(module.getName()
+					+ " is not a module");
+		}
+		return new Preloader(moduleModel, Modules.getClassLoader(module),
+				executor, initialize).start();
+	}
+
 	/**
 	 * Check if all classes belong to a module. All errors are added to the
 	 * provided error list.
@@ -0,0 +1,116 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Configuration of {@link Modules}, read from the jabsaw.properties resource.
+ */
+class ModulesConfig {
+	private final static Logger logger = LoggerFactory
+			.getLogger(ModulesConfig.class);
+
+	public final boolean includeJars;
+	public final boolean useModuleNames;
+	public final String excludePath;
+
+	/**
+	 * Directory of the on-disk model cache, null if caching is disabled
+	 */
+	public final String cacheDirectory;
+
+	/**
+	 * If true, the model is read on a background thread as soon as
+	 * {@link Modules} is loaded
+	 */
+	public final boolean warmUpOnLoad;
+
+	/**
+	 * If true, questions about single modules are answered from a partial
+	 * model, see {@link LazyModelBuilder}
+	 */
+	public final boolean lazy;
+
+	/**
+	 * Filter built from the scanPackages and excludePackages properties
+	 */
+	public final PackageFilter packageFilter;
+
+	/**
+	 * Properties the scan result depends on, used to identify cached models
+	 */
+	public final String scanKey;
+
+	public ModulesConfig(Properties properties) {
+		includeJars = parseBoolean(properties, "includeJars", true);
+		useModuleNames = parseBoolean(properties, "useModuleNames", false);
+		excludePath = properties.getProperty("excludePath");
+		cacheDirectory = properties.getProperty("cacheDirectory");
+		warmUpOnLoad = parseBoolean(properties, "warmUpOnLoad", false);
+		lazy = parseBoolean(properties, "lazy", false);
+		List<String> scanPackages = parseList(properties, "scanPackages");
+		List<String> excludePackages = parseList(properties,
+				"excludePackages");
+		packageFilter = new PackageFilter(scanPackages, excludePackages);
+		scanKey = includeJars + "|" + useModuleNames + "|" + excludePath + "|"
+				+ scanPackages + "|" + excludePackages;
+	}
+
+	/**
+	 * Load the configuration from the jabsaw.properties resource of the given
+	 * class loader. If the resource is not found, the defaults are used.
+	 */
+	public static ModulesConfig load(ClassLoader classLoader) {
+		Properties properties = new Properties();
+		try (InputStream in = classLoader
+				.getResourceAsStream("jabsaw.properties")) {
+			if (in != null) {
+				properties.load(in);
+				logger.info("loaded jabsaw.properties");
+			} else {
+				logger.info("jabsaw.properties not found");
+			}
+		} catch (IOException e) {
+			logger.error("error loading jabsaw.properties");
+		}
+		return new ModulesConfig(properties);
+	}
+
+	/**
+	 * Parse a comma separated list
+	 */
+	private List<String> parseList(Properties properties, String propertyName) {
+		List<String> result = new ArrayList<>();
+		String s = properties.getProperty(propertyName);
+		if (s != null) {
+			for (String item : s.split(",")) {
+				if (!item.trim().isEmpty()) {
+					result.add(item.trim());
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean parseBoolean(Properties properties, String propertyName,
+			boolean defaultValue) throws Error {
+		String s = properties.getProperty(propertyName);
+		if (s == null) {
+			return defaultValue;
+		}
+		if ("true".equalsIgnoreCase(s)) {
+			return true;
+		} else if ("false".equalsIgnoreCase(s)) {
+			return false;
+		} else {
+			throw new Error(propertyName + " must be true or false");
+		}
+	}
+
+}
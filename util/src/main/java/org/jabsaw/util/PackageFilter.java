@@ -0,0 +1,105 @@
+package org.jabsaw.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Decides which resources to scan, based on lists of package prefixes to
+ * include and to exclude. The prefixes are stored in a character trie, which
+ * is matched against the resource names without allocating. The most specific
+ * matching prefix decides. If no prefix matches, a resource is included if no
+ * packages to scan have been given.
+ */
+class PackageFilter {
+
+	private static class Node {
+		char[] chars = new char[0];
+		Node[] children = new Node[0];
+
+		/**
+		 * Set if a prefix ends at this node
+		 */
+		Boolean include;
+
+		Node getChild(char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			Node child = getChild(c);
+			if (child == null) {
+				child = new Node();
+				chars = Arrays.copyOf(chars, chars.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				chars[chars.length - 1] = c;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+
+	private final Node root = new Node();
+	private final boolean includeByDefault;
+
+	/**
+	 * @param scanPackages
+	 *            packages to scan, including sub packages. If empty, all
+	 *            packages are scanned
+	 * @param excludePackages
+	 *            packages not to scan, including sub packages
+	 */
+	public PackageFilter(Collection<String> scanPackages,
+			Collection<String> excludePackages) {
+		includeByDefault = scanPackages.isEmpty();
+		for (String pkg : scanPackages) {
+			add(pkg, true);
+		}
+		for (String pkg : excludePackages) {
+			add(pkg, false);
+		}
+	}
+
+	private void add(String pkg, boolean include) {
+		// "org.jabsaw." is the same prefix as "org.jabsaw"
+		int length = pkg.length();
+		while (length > 0 && pkg.charAt(length - 1) == '.') {
+			length--;
+		}
+		if (length == 0) {
+			return;
+		}
+		Node node = root;
+		for (int i = 0; i < length; i++) {
+			char c = pkg.charAt(i);
+			node = node.addChild(c == '.' ? '/' : c);
+		}
+		node.include = include;
+	}
+
+	/**
+	 * Check if the resource with the given name (for example
+	 * "org/jabsaw/Module.class") is to be scanned
+	 */
+	public boolean isIncluded(String resourceName) {
+		boolean result = includeByDefault;
+		int end = resourceName.lastIndexOf('/');
+		Node node = root;
+		for (int i = 0; i <= end; i++) {
+			char c = resourceName.charAt(i);
+			if (c == '/' && node.include != null) {
+				// prefixes only match whole package name segments
+				result = node.include;
+			}
+			node = node.getChild(c);
+			if (node == null) {
+				break;
+			}
+		}
+		return result;
+	}
+}
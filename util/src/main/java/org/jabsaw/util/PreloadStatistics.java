@@ -0,0 +1,68 @@
+package org.jabsaw.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Timing statistics of {@link Modules#preload(Class, java.util.concurrent.Executor)}
+ */
+public class PreloadStatistics {
+
+	private final int classCount;
+	private final int levelCount;
+	private final List<String> failedClasses;
+	private final long elapsedNanos;
+	private final long loadingNanos;
+
+	PreloadStatistics(int classCount, int levelCount,
+			List<String> failedClasses, long elapsedNanos, long loadingNanos) {
+		this.classCount = classCount;
+		this.levelCount = levelCount;
+		this.failedClasses = Collections.unmodifiableList(failedClasses);
+		this.elapsedNanos = elapsedNanos;
+		this.loadingNanos = loadingNanos;
+	}
+
+	/**
+	 * Number of classes which have been loaded, including nested classes
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Number of dependency levels the classes have been loaded in
+	 */
+	public int getLevelCount() {
+		return levelCount;
+	}
+
+	/**
+	 * Names of the classes which could not be loaded or initialized
+	 */
+	public List<String> getFailedClasses() {
+		return failedClasses;
+	}
+
+	/**
+	 * Wall clock time from the start of the preloading to its completion
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Sum of the time spent loading classes over all threads
+	 */
+	public long getLoadingNanos() {
+		return loadingNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "loaded " + classCount + " classes in " + levelCount
+				+ " levels, " + failedClasses.size() + " failed, elapsed "
+				+ elapsedNanos / 1000000 + "ms, loading " + loadingNanos
+				/ 1000000 + "ms";
+	}
+}
@@ -0,0 +1,136 @@
+package org.jabsaw.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.DependencyGraph;
+import org.jabsaw.impl.model.ModuleModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Loads the classes required by a module on an {@link Executor}. The classes
+ * are grouped by their dependency level. The classes of a level are loaded in
+ * parallel, the next level is started once all classes of the previous level
+ * are loaded. Thus a class is typically loaded after the classes it depends
+ * upon, and the threads do not contend for the same classes.
+ */
+class Preloader {
+	private final static Logger logger = LoggerFactory
+			.getLogger(Preloader.class);
+
+	/**
+	 * Number of classes loaded by a single task
+	 */
+	private static final int CHUNK_SIZE = 32;
+
+	private final ClassLoader classLoader;
+	private final Executor executor;
+	private final boolean initialize;
+
+	private final List<List<String>> levels = new ArrayList<>();
+	private final SettableFuture<PreloadStatistics> future = SettableFuture
+			.create();
+	private final List<String> failedClasses = Collections
+			.synchronizedList(new ArrayList<String>());
+	private final AtomicLong loadingNanos = new AtomicLong();
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+	private int classCount;
+	private long startNanos;
+
+	Preloader(ModuleModel module, ClassLoader classLoader, Executor executor,
+			boolean initialize) {
+		this.classLoader = classLoader;
+		this.executor = executor;
+		this.initialize = initialize;
+
+		DependencyGraph graph = module.getProjectModel().getDependencyGraph();
+		int[] classLevels = graph.getClassLevels();
+		Set<ClassModel> required = module.getAllClassDependencies();
+		for (ClassModel clazz : required) {
+			int level = classLevels[graph.getId(clazz)];
+			while (levels.size() <= level) {
+				levels.add(new ArrayList<String>());
+			}
+			List<String> names = levels.get(level);
+			names.add(clazz.getQualifiedName());
+			for (ClassModel nested : clazz.getNestedClasses()) {
+				names.add(nested.getQualifiedName());
+			}
+			classCount += 1 + clazz.getNestedClasses().size();
+		}
+	}
+
+	ListenableFuture<PreloadStatistics> start() {
+		startNanos = System.nanoTime();
+		startLevel(0);
+		return future;
+	}
+
+	private void startLevel(int level) {
+		// skip empty levels
+		while (level < levels.size() && levels.get(level).isEmpty()) {
+			level++;
+		}
+
+		if (level >= levels.size()) {
+			future.set(new PreloadStatistics(classCount, levels.size(),
+					new ArrayList<>(failedClasses), System.nanoTime()
+							- startNanos, loadingNanos.get()));
+			return;
+		}
+
+		final int nextLevel = level + 1;
+		List<String> names = levels.get(level);
+		int chunkCount = (names.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		pendingTasks.set(chunkCount);
+		for (int i = 0; i < chunkCount; i++) {
+			final List<String> chunk = names.subList(i * CHUNK_SIZE,
+					Math.min(names.size(), (i + 1) * CHUNK_SIZE));
+			try {
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							load(chunk);
+						} catch (RuntimeException | Error e) {
+							// the remaining levels are never started
+							future.setException(e);
+							throw e;
+						}
+						if (pendingTasks.decrementAndGet() == 0) {
+							startLevel(nextLevel);
+						}
+					}
+				});
+			} catch (RuntimeException e) {
+				future.setException(e);
+				return;
+			}
+		}
+	}
+
+	private void load(List<String> names) {
+		long start = System.nanoTime();
+		for (String name : names) {
+			try {
+				Class.forName(name, initialize, classLoader);
+			} catch (ClassNotFoundException | LinkageError e) {
+				// LinkageError includes ExceptionInInitializerError
+				logger.debug("unable to preload " + name, e);
+				failedClasses.add(name);
+			}
+		}
+		loadingNanos.addAndGet(System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,109 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.ModelIndex;
+import org.jabsaw.impl.model.ClassModel;
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.util.testmodules.NoModuleClass;
+import org.jabsaw.util.testmodules.a.ClassA;
+import org.jabsaw.util.testmodules.a.ModuleA;
+import org.jabsaw.util.testmodules.b.ClassB;
+import org.jabsaw.util.testmodules.b.ModuleB;
+import org.jabsaw.util.testmodules.c.ClassC;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+public class LazyModelBuilderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path testClasses;
+
+	@Before
+	public void setup() throws URISyntaxException {
+		testClasses = Paths.get(ModuleA.class.getProtectionDomain()
+				.getCodeSource().getLocation().toURI());
+	}
+
+	private URLClassLoader loader(Path... entries) throws IOException {
+		URL[] urls = new URL[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			urls[i] = entries[i].toUri().toURL();
+		}
+		return new URLClassLoader(urls, null);
+	}
+
+	@Test
+	public void readsIndexes() throws IOException {
+		// module B is only available from an index
+		ClassParser parser = new ClassParser();
+		for (Class<?> clazz : new Class<?>[] { ModuleB.class, ClassB.class,
+				NoModuleClass.class }) {
+			parser.parse(new ClassReader(clazz.getName()));
+		}
+		Path indexed = folder.newFolder("indexed").toPath();
+		Path index = indexed.resolve(ModelIndex.RESOURCE_NAME);
+		Files.createDirectories(index.getParent());
+		try (OutputStream out = Files.newOutputStream(index)) {
+			ModelIndex.write(parser.getProject(), out);
+		}
+
+		Properties properties = new Properties();
+		properties.setProperty("scanPackages",
+				"org.jabsaw.util.testmodules.a, org.jabsaw.util.testmodules.c");
+		ProjectModel project = new LazyModelBuilder(
+				loader(indexed, testClasses), new ModulesConfig(properties))
+				.build(ModuleA.class.getName());
+
+		ModuleModel moduleB = project.getModule(ModuleB.class.getName());
+		Assert.assertNotNull(moduleB);
+		ClassModel classA = project.getClassModel(ClassA.class.getName());
+		ClassModel classB = project.getClassModel(ClassB.class.getName());
+		Assert.assertTrue(classA.getUsesClasses().contains(classB));
+		Assert.assertSame(moduleB, classB.getModule());
+		Assert.assertNull(project.getClassModel(ClassC.class.getName()));
+	}
+
+	@Test
+	public void refreshDiscardsLazyModels() throws Exception {
+		Path config = folder.newFolder("config").toPath();
+		Files.write(config.resolve("jabsaw.properties"),
+				("lazy = true\nscanPackages = org.jabsaw.util.testmodules\n")
+						.getBytes(StandardCharsets.UTF_8));
+		URLClassLoader loader = loader(config, testClasses);
+		Class<?> moduleA = loader.loadClass(ModuleA.class.getName());
+
+		try {
+			ModuleModel module = Modules.getModuleModel(moduleA);
+			Assert.assertSame(module, Modules.getModuleModel(moduleA));
+			// only the partial model has been built
+			Assert.assertNull(module.getProjectModel().getClassModel(
+					ClassC.class.getName()));
+
+			Modules.refresh(loader);
+			ModuleModel refreshed = Modules.getModuleModel(moduleA);
+			Assert.assertNotSame(module, refreshed);
+			Assert.assertNull(refreshed.getProjectModel().getClassModel(
+					ClassC.class.getName()));
+		} finally {
+			Modules.invalidate(loader);
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.jabsaw.impl.model.ProjectModel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModelCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path classes;
+	private Path lib;
+
+	@Before
+	public void setup() throws IOException {
+		classes = folder.newFolder("classes").toPath();
+		Files.write(classes.resolve("A.class"), new byte[] { 1 });
+		lib = folder.getRoot().toPath().resolve("lib.jar");
+		writeJar(lib, null, "foo/B.class");
+	}
+
+	private void writeJar(Path jar, String classPath, String... entries)
+			throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+				"1.0");
+		if (classPath != null) {
+			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH,
+					classPath);
+		}
+		try (OutputStream out = Files.newOutputStream(jar);
+				JarOutputStream jarOut = new JarOutputStream(out, manifest)) {
+			for (String entry : entries) {
+				jarOut.putNextEntry(new JarEntry(entry));
+				jarOut.write(1);
+				jarOut.closeEntry();
+			}
+		}
+	}
+
+	private URLClassLoader loader(Path... entries) throws IOException {
+		List<URL> urls = new ArrayList<>();
+		for (Path entry : entries) {
+			urls.add(entry.toUri().toURL());
+		}
+		return new URLClassLoader(urls.toArray(new URL[] {}), null);
+	}
+
+	private String key(ClassLoader loader) throws IOException {
+		return new ModelCache(folder.getRoot().toPath(), loader,
+				new ModulesConfig(new Properties())).calculateKey();
+	}
+
+	@Test
+	public void manifestOnlyJar() throws IOException {
+		Path booter1 = folder.getRoot().toPath().resolve("booter1.jar");
+		writeJar(booter1, "classes/ lib.jar");
+		Path booter2 = folder.newFolder("tmp").toPath().resolve("booter2.jar");
+		writeJar(booter2, classes.toUri() + " " + lib.toUri());
+
+		Assert.assertEquals(Arrays.asList(classes, lib),
+				ModelCache.getClasspathEntries(loader(booter1)));
+		Assert.assertEquals(Arrays.asList(classes, lib),
+				ModelCache.getClasspathEntries(loader(booter2)));
+
+		// the location of the booter jar does not matter, the classes do
+		String key = key(loader(booter1));
+		Assert.assertEquals(key, key(loader(booter2)));
+		Files.write(classes.resolve("A.class"), new byte[] { 1, 2 });
+		Assert.assertNotEquals(key, key(loader(booter1)));
+	}
+
+	@Test
+	public void jarWithClassPath() throws IOException {
+		Path app = folder.getRoot().toPath().resolve("app.jar");
+		writeJar(app, "lib.jar missing.jar", "foo/App.class");
+
+		Assert.assertEquals(
+				Arrays.asList(app, lib,
+						folder.getRoot().toPath().resolve("missing.jar")),
+				ModelCache.getClasspathEntries(loader(app, lib)));
+	}
+
+	@Test
+	public void concurrentThreads() throws Exception {
+		final Path directory = folder.newFolder("cache").toPath();
+		final URLClassLoader loader = loader(folder.newFolder("empty")
+				.toPath());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int round = 0; round < 10; round++) {
+				try (DirectoryStream<Path> files = Files
+						.newDirectoryStream(directory)) {
+					for (Path file : files) {
+						Files.delete(file);
+					}
+				}
+				final CountDownLatch start = new CountDownLatch(1);
+				List<Future<ProjectModel>> results = new ArrayList<>();
+				for (int i = 0; i < 4; i++) {
+					results.add(executor.submit(new Callable<ProjectModel>() {
+						@Override
+						public ProjectModel call() throws Exception {
+							start.await();
+							return new ModelCache(directory, loader,
+									new ModulesConfig(new Properties()))
+									.getProjectModel();
+						}
+					}));
+				}
+				start.countDown();
+				for (Future<ProjectModel> result : results) {
+					Assert.assertNotNull(result.get());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package org.jabsaw.util;
+
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.util.testmodules.NoModuleClass;
+import org.jabsaw.util.testmodules.a.ClassA;
+import org.jabsaw.util.testmodules.a.ModuleA;
+import org.jabsaw.util.testmodules.b.ClassB;
+import org.jabsaw.util.testmodules.c.ClassC;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class ModulesTest {
+
+	/**
+	 * Class loader reading the test classes again, configured by the
+	 * jabsaw.properties of the test classes
+	 */
+	private URLClassLoader createTestClassesLoader()
+			throws URISyntaxException, MalformedURLException {
+		URL testClasses = Paths
+				.get(ModuleA.class.getProtectionDomain().getCodeSource()
+						.getLocation().toURI()).toUri().toURL();
+		return new URLClassLoader(new URL[] { testClasses }, null);
+	}
+
+	@Test
+	public void warmUpIsShared() throws Exception {
+		URLClassLoader loader = createTestClassesLoader();
+		// keep the warm up pending until both calls returned
+		final CountDownLatch release = new CountDownLatch(1);
+		Modules.warmUpExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			ListenableFuture<ProjectModel> first = Modules.warmUpAsync(loader);
+			Assert.assertSame(first, Modules.warmUpAsync(loader));
+			release.countDown();
+			Assert.assertSame(Modules.getProjectModel(loader), first.get());
+		} finally {
+			release.countDown();
+			Modules.invalidate(loader);
+		}
+	}
+
+	@Test
+	public void moduleOfFollowsInvalidation() throws Exception {
+		URLClassLoader loader = createTestClassesLoader();
+		Class<?> classA = loader.loadClass(ClassA.class.getName());
+		try {
+			ModuleModel module = Modules.getModuleOf(classA);
+			Assert.assertEquals(ModuleA.class.getName(),
+					module.getQualifiedNameOfRepresentingClass());
+			Assert.assertSame(module, Modules.getModuleOf(classA));
+
+			// the outdated entry is replaced by the module of the new model
+			Modules.invalidate(loader);
+			ModuleModel reloaded = Modules.getModuleOf(classA);
+			Assert.assertNotSame(module, reloaded);
+			Assert.assertSame(Modules.getProjectModel(loader),
+					reloaded.getProjectModel());
+			Assert.assertSame(reloaded, Modules.getModuleOf(classA));
+		} finally {
+			Modules.invalidate(loader);
+		}
+	}
+
+	/**
+	 * Class loader reading the test modules again, delegating all other
+	 * classes to the class loader of the test
+	 */
+	private URLClassLoader createTestModulesLoader() throws URISyntaxException,
+			MalformedURLException {
+		ClassLoader parent = new ClassLoader(getClass().getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String name, boolean resolve)
+					throws ClassNotFoundException {
+				if (name.startsWith("org.jabsaw.util.testmodules.")) {
+					throw new ClassNotFoundException(name);
+				}
+				return super.loadClass(name, resolve);
+			}
+		};
+		return new URLClassLoader(createTestClassesLoader().getURLs(), parent);
+	}
+
+	private ModuleModel getCallerModule(ClassLoader loader, int depth,
+			int maxDepth) throws Exception {
+		Method method = loader.loadClass(ClassA.class.getName()).getMethod(
+				"getCallerModule", int.class, int.class);
+		return (ModuleModel) method.invoke(null, depth, maxDepth);
+	}
+
+	@Test
+	public void callerModule() throws Exception {
+		Assert.assertNull(Modules.getCallerModule());
+
+		URLClassLoader loader = createTestModulesLoader();
+		try {
+			Assert.assertEquals(ModuleA.class.getName(),
+					getCallerModule(loader, 3, 4)
+							.getQualifiedNameOfRepresentingClass());
+			// the frame of ClassA is out of reach
+			Assert.assertNull(getCallerModule(loader, 3, 3));
+			Assert.assertNull(getCallerModule(loader, 1, 0));
+		} finally {
+			Modules.invalidate(loader);
+		}
+	}
+
+	private void callerContext(CallerContext context) {
+		Class<?>[] callers = context.getCallers(Object.class, 2);
+		Assert.assertEquals(2, callers.length);
+		Assert.assertSame(ModulesTest.class, callers[0]);
+		callers = context.getCallers(ModulesTest.class, 1);
+		Assert.assertEquals(1, callers.length);
+		Assert.assertNotSame(ModulesTest.class, callers[0]);
+		Assert.assertEquals(0, context.getCallers(Object.class, 0).length);
+	}
+
+	@Test
+	public void stackWalkerContext() throws Exception {
+		callerContext(new CallerContext.StackWalkerContext());
+	}
+
+	@Test
+	public void securityManagerContext() {
+		callerContext(new CallerContext.SecurityManagerContext());
+	}
+
+	@Test
+	public void moduleClassLoader() throws Exception {
+		URLClassLoader loader = createTestModulesLoader();
+		try {
+			ClassLoader moduleLoader = Modules.createModuleClassLoader(loader
+					.loadClass(ModuleA.class.getName()));
+
+			// classes of the module and of imported modules are redefined
+			Class<?> classA = moduleLoader.loadClass(ClassA.class.getName());
+			Assert.assertSame(moduleLoader, classA.getClassLoader());
+			Assert.assertSame(moduleLoader, classA.getField("b").getType()
+					.getClassLoader());
+			Assert.assertSame(moduleLoader,
+					moduleLoader.loadClass(ClassB.class.getName())
+							.getClassLoader());
+
+			// classes in no module are delegated
+			Assert.assertSame(loader,
+					moduleLoader.loadClass(NoModuleClass.class.getName())
+							.getClassLoader());
+			Assert.assertSame(String.class,
+					moduleLoader.loadClass(String.class.getName()));
+
+			// classes of modules which are not imported are not accessible
+			try {
+				moduleLoader.loadClass(ClassC.class.getName());
+				Assert.fail("class of module C loaded");
+			} catch (ClassNotFoundException e) {
+				// expected
+			}
+		} finally {
+			Modules.invalidate(loader);
+		}
+	}
+}
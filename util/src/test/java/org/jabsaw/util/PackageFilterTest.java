@@ -0,0 +1,65 @@
+package org.jabsaw.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PackageFilterTest {
+
+	private PackageFilter filter(List<String> scanPackages,
+			String... excludePackages) {
+		return new PackageFilter(scanPackages, Arrays.asList(excludePackages));
+	}
+
+	@Test
+	public void includeAllByDefault() {
+		PackageFilter filter = filter(Collections.<String> emptyList());
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/Module.class"));
+		Assert.assertTrue(filter.isIncluded("Default.class"));
+	}
+
+	@Test
+	public void segmentBoundaries() {
+		PackageFilter filter = filter(Arrays.asList("org.jabsaw"));
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/Module.class"));
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/impl/Parser.class"));
+		Assert.assertFalse(filter.isIncluded("org/jabsawx/Foo.class"));
+		Assert.assertFalse(filter.isIncluded("org/jab/Foo.class"));
+		Assert.assertFalse(filter.isIncluded("org/Foo.class"));
+	}
+
+	@Test
+	public void excludeInsideInclude() {
+		PackageFilter filter = filter(Arrays.asList("org"), "org.jabsaw.impl");
+		Assert.assertTrue(filter.isIncluded("org/Foo.class"));
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/Module.class"));
+		Assert.assertFalse(filter.isIncluded("org/jabsaw/impl/Parser.class"));
+		Assert.assertFalse(filter.isIncluded("org/jabsaw/impl/model/A.class"));
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/implx/A.class"));
+		Assert.assertFalse(filter.isIncluded("com/Foo.class"));
+
+		filter = filter(Collections.<String> emptyList(), "org.jabsaw");
+		Assert.assertFalse(filter.isIncluded("org/jabsaw/Module.class"));
+		Assert.assertTrue(filter.isIncluded("org/Foo.class"));
+	}
+
+	@Test
+	public void defaultPackage() {
+		PackageFilter filter = filter(Arrays.asList("org"));
+		Assert.assertFalse(filter.isIncluded("Default.class"));
+		filter = filter(Collections.<String> emptyList(), "org");
+		Assert.assertTrue(filter.isIncluded("Default.class"));
+	}
+
+	@Test
+	public void trailingDots() {
+		PackageFilter filter = filter(Arrays.asList("org.jabsaw."),
+				"org.jabsaw.impl..");
+		Assert.assertTrue(filter.isIncluded("org/jabsaw/Module.class"));
+		Assert.assertFalse(filter.isIncluded("org/jabsaw/impl/Parser.class"));
+		Assert.assertFalse(filter.isIncluded("org/jabsawx/Foo.class"));
+	}
+}
@@ -0,0 +1,77 @@
+package org.jabsaw.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jabsaw.impl.ClassParser;
+import org.jabsaw.impl.model.ProjectModel;
+import org.jabsaw.util.testmodules.NoModuleClass;
+import org.jabsaw.util.testmodules.a.ClassA;
+import org.jabsaw.util.testmodules.a.ModuleA;
+import org.jabsaw.util.testmodules.b.ClassB;
+import org.jabsaw.util.testmodules.b.ModuleB;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class PreloaderTest {
+
+	/**
+	 * Records the loaded classes, fails for {@link ClassB}
+	 */
+	private static class RecordingClassLoader extends ClassLoader {
+		final List<String> loaded = Collections
+				.synchronizedList(new ArrayList<String>());
+
+		RecordingClassLoader() {
+			super(PreloaderTest.class.getClassLoader());
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve)
+				throws ClassNotFoundException {
+			loaded.add(name);
+			if (ClassB.class.getName().equals(name)) {
+				throw new NoClassDefFoundError(name);
+			}
+			return super.loadClass(name, resolve);
+		}
+	}
+
+	@Test
+	public void levels() throws Exception {
+		ClassParser parser = new ClassParser();
+		for (Class<?> clazz : new Class<?>[] { ModuleA.class, ClassA.class,
+				ModuleB.class, ClassB.class, NoModuleClass.class }) {
+			parse(parser, clazz);
+		}
+		ProjectModel project = parser.getProject();
+		project.resolveDependencies();
+
+		RecordingClassLoader classLoader = new RecordingClassLoader();
+		PreloadStatistics statistics = new Preloader(
+				project.getModule(ModuleA.class.getName()), classLoader,
+				MoreExecutors.sameThreadExecutor(), false).start().get();
+
+		Assert.assertEquals(5, statistics.getClassCount());
+		Assert.assertEquals(3, statistics.getLevelCount());
+		Assert.assertEquals(Collections.singletonList(ClassB.class.getName()),
+				statistics.getFailedClasses());
+
+		// dependencies are loaded first
+		List<String> loaded = classLoader.loaded;
+		Assert.assertEquals(5, loaded.size());
+		Assert.assertTrue(loaded.indexOf(NoModuleClass.class.getName()) < loaded
+				.indexOf(ClassB.class.getName()));
+		Assert.assertTrue(loaded.indexOf(ClassB.class.getName()) < loaded
+				.indexOf(ClassA.class.getName()));
+	}
+
+	private void parse(ClassParser parser, Class<?> clazz) throws IOException {
+		parser.parse(new ClassReader(clazz.getName()));
+	}
+}
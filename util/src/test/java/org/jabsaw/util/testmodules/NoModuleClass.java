@@ -0,0 +1,21 @@
+package org.jabsaw.util.testmodules;
+
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.util.Modules;
+
+/**
+ * Class in no module
+ */
+public class NoModuleClass {
+
+	/**
+	 * Call {@link Modules#getCallerModule(int)} from depth frames of this
+	 * class
+	 */
+	public static ModuleModel getCallerModule(int depth, int maxDepth) {
+		if (depth <= 1) {
+			return Modules.getCallerModule(maxDepth);
+		}
+		return getCallerModule(depth - 1, maxDepth);
+	}
+}
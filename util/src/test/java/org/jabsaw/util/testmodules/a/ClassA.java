@@ -0,0 +1,17 @@
+package org.jabsaw.util.testmodules.a;
+
+import org.jabsaw.impl.model.ModuleModel;
+import org.jabsaw.util.testmodules.NoModuleClass;
+import org.jabsaw.util.testmodules.b.ClassB;
+
+public class ClassA {
+	public ClassB b;
+
+	/**
+	 * Determine the caller module from below the given number of frames of a
+	 * class in no module
+	 */
+	public static ModuleModel getCallerModule(int depth, int maxDepth) {
+		return NoModuleClass.getCallerModule(depth, maxDepth);
+	}
+}
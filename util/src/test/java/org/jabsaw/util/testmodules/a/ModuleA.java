@@ -0,0 +1,8 @@
+package org.jabsaw.util.testmodules.a;
+
+import org.jabsaw.Module;
+import org.jabsaw.util.testmodules.b.ModuleB;
+
+@Module(imported = ModuleB.class)
+public class ModuleA {
+}
@@ -0,0 +1,7 @@
+package org.jabsaw.util.testmodules.b;
+
+import org.jabsaw.util.testmodules.NoModuleClass;
+
+public class ClassB {
+	public NoModuleClass helper;
+}
@@ -0,0 +1,7 @@
+package org.jabsaw.util.testmodules.b;
+
+import org.jabsaw.Module;
+
+@Module
+public class ModuleB {
+}
@@ -0,0 +1,4 @@
+package org.jabsaw.util.testmodules.c;
+
+public class ClassC {
+}
@@ -0,0 +1,7 @@
+package org.jabsaw.util.testmodules.c;
+
+import org.jabsaw.Module;
+
+@Module
+public class ModuleC {
+}